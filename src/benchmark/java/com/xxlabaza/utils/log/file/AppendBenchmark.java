@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.appulse.utils.Bytes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link LogFile#append(Bytes)} throughput and latency with one and many writers,
+ * with and without the force flush, for the records, which are smaller and larger than a block.
+ * <p>
+ * Run it with: {@code mvn -P benchmarks test-compile exec:exec -Dbenchmark.include=AppendBenchmark}
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({ Throughput, SampleTime })
+@OutputTimeUnit(MICROSECONDS)
+public class AppendBenchmark {
+
+  private static final int BLOCK_BYTES = 4096;
+
+  @Param({ "false", "true" })
+  boolean forceFlush;
+
+  @Param({ "64", "1024", "16384" })
+  int recordBytes;
+
+  Path file;
+
+  LogFile logFile;
+
+  byte[] payload;
+
+  @Setup(Level.Iteration)
+  public void setup () throws Exception {
+    payload = new byte[recordBytes];
+    ThreadLocalRandom.current().nextBytes(payload);
+
+    file = Files.createTempFile("append", ".benchmark");
+    logFile = new LogFile(LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(BLOCK_BYTES)
+        .forceFlush(forceFlush)
+        .build());
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown () throws Exception {
+    logFile.close();
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long appendSingleThreaded () {
+    return logFile.append(Bytes.wrap(payload));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long appendMultiThreaded () {
+    return logFile.append(Bytes.wrap(payload));
+  }
+}
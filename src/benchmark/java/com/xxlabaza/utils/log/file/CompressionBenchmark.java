@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.appulse.utils.Bytes;
+import lombok.val;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the append and the load throughput of the compressed and the uncompressed log files.
+ * <p>
+ * Run it with: {@code mvn -P benchmarks test-compile exec:exec -Dbenchmark.include=CompressionBenchmark}
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+public class CompressionBenchmark {
+
+  private static final int LOADED_RECORDS = 10_000;
+
+  @Param({ "false", "true" })
+  boolean compression;
+
+  @Param({ "1", "6" })
+  int level;
+
+  Path appendFile;
+
+  Path loadFile;
+
+  LogFile appendLogFile;
+
+  LogFile loadLogFile;
+
+  byte[] payload;
+
+  @Setup
+  public void setup () throws Exception {
+    val json = new StringBuilder();
+    for (int index = 0; index < 16; index++) {
+      json.append("{\"id\":").append(index)
+          .append(",\"name\":\"record-").append(index)
+          .append("\",\"tags\":[\"log\",\"file\",\"benchmark\"]},");
+    }
+    payload = json.toString().getBytes(UTF_8);
+
+    appendFile = Files.createTempFile("compression-append", ".benchmark");
+    loadFile = Files.createTempFile("compression-load", ".benchmark");
+    appendLogFile = new LogFile(config(appendFile));
+    loadLogFile = new LogFile(config(loadFile));
+    for (int index = 0; index < LOADED_RECORDS; index++) {
+      loadLogFile.append(Bytes.wrap(payload));
+    }
+  }
+
+  @TearDown
+  public void tearDown () throws Exception {
+    appendLogFile.close();
+    loadLogFile.close();
+    Files.deleteIfExists(appendFile);
+    Files.deleteIfExists(loadFile);
+  }
+
+  @Benchmark
+  public long append () {
+    return appendLogFile.append(Bytes.wrap(payload));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOADED_RECORDS)
+  public void load (Blackhole blackhole) {
+    loadLogFile.load((record, position) -> {
+      blackhole.consume(record.readableBytes());
+      return true;
+    });
+  }
+
+  private LogFile.Config config (Path path) {
+    return LogFile.Config.builder()
+        .path(path)
+        .forceFlush(false)
+        .compression(LogFile.Config.CompressionConfig.builder()
+            .enabled(compression)
+            .codec(new DeflateCodec(level))
+            .build())
+        .build();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.appulse.utils.Bytes;
+import lombok.val;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the records' read throughput of the full file loads, in records per second.
+ * <p>
+ * Run it with: {@code mvn -P benchmarks test-compile exec:exec -Dbenchmark.include=LoadBenchmark}
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+public class LoadBenchmark {
+
+  private static final int RECORDS = 10_000;
+
+  private static final int BLOCK_BYTES = 4096;
+
+  @Param({ "64", "1024", "16384" })
+  int recordBytes;
+
+  @Param({ "CHANNEL", "MEMORY_MAPPED" })
+  ReadMode readMode;
+
+  Path file;
+
+  LogFile logFile;
+
+  @Setup
+  public void setup () throws Exception {
+    val payload = new byte[recordBytes];
+    ThreadLocalRandom.current().nextBytes(payload);
+
+    file = Files.createTempFile("load", ".benchmark");
+    logFile = new LogFile(LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(BLOCK_BYTES)
+        .forceFlush(false)
+        .readMode(readMode)
+        .build());
+    for (int index = 0; index < RECORDS; index++) {
+      logFile.append(Bytes.wrap(payload));
+    }
+  }
+
+  @TearDown
+  public void tearDown () throws Exception {
+    logFile.close();
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void load (Blackhole blackhole) {
+    logFile.load((record, position) -> {
+      blackhole.consume(record.readableBytes());
+      return true;
+    });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void loadViews (Blackhole blackhole) {
+    logFile.loadViews((view, position) -> {
+      blackhole.consume(view.remaining());
+      return true;
+    });
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import io.appulse.utils.Bytes;
+import lombok.val;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link LogFilesManager#append(Path, Bytes)} throughput of the concurrent writers,
+ * which append to the randomly chosen files of the manager's directory, against a single writer.
+ * <p>
+ * Run it with: {@code mvn -P benchmarks test-compile exec:exec -Dbenchmark.include=LogFilesManagerBenchmark}
+ */
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+public class LogFilesManagerBenchmark {
+
+  @Param({ "1", "16", "64" })
+  int files;
+
+  @Param({ "256" })
+  int recordBytes;
+
+  Path directory;
+
+  Path[] paths;
+
+  LogFilesManager manager;
+
+  byte[] payload;
+
+  @Setup(Level.Iteration)
+  public void setup () throws Exception {
+    payload = new byte[recordBytes];
+    ThreadLocalRandom.current().nextBytes(payload);
+
+    paths = new Path[files];
+    for (int index = 0; index < files; index++) {
+      paths[index] = Paths.get("file-" + index + ".log");
+    }
+
+    directory = Files.createTempDirectory("manager-benchmark");
+    manager = new LogFilesManager(LogFilesManager.Config.builder()
+        .directory(directory)
+        .commonConfig(LogFile.Config.builder()
+            .forceFlush(false)
+            .build())
+        .build());
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown () throws Exception {
+    manager.close();
+    try (Stream<Path> walk = Files.walk(directory)) {
+      val files = walk.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+      for (val path : files) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public void append () {
+    val path = paths[ThreadLocalRandom.current().nextInt(paths.length)];
+    manager.append(path, Bytes.wrap(payload));
+  }
+
+  /**
+   * The single writer's baseline for the {@link #append() concurrent appends}.
+   */
+  @Benchmark
+  @Threads(1)
+  public void appendSingleThread () {
+    append();
+  }
+}
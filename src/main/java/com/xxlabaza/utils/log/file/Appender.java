@@ -22,70 +22,392 @@ import static java.nio.file.StandardOpenOption.WRITE;
 import static lombok.AccessLevel.PRIVATE;
 
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.appulse.utils.Bytes;
 import io.appulse.utils.BytesPool;
 import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.val;
 
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 final class Appender implements AutoCloseable {
 
-  FileChannel channel;
+  /**
+   * The maximum number of the blocks, which are staged for a single gathering write,
+   * it bounds the memory of the large records and batches and stays below the usual IOV_MAX.
+   */
+  private static final int MAX_STAGED_BLOCKS = 64;
+
+  BlockSink sink;
 
   boolean forceFlush;
 
+  BytesPool pool;
+
+  int blockBytes;
+
+  @NonFinal
   Block block;
 
-  @SneakyThrows
+  Lock lock;
+
+  Condition appended;
+
+  GroupCommit groupCommit;
+
+  SequenceIndex sequenceIndex;
+
+  TimeIndex timeIndex;
+
+  ChecksumType checksumType;
+
+  Path checkpoint;
+
+  boolean directBuffers;
+
+  LogFileMetrics metrics;
+
+  boolean metered;
+
+  boolean timestamps;
+
+  CompressionCodec compression;
+
+  Bytes staged;
+
+  Bytes compressed;
+
+  @NonFinal
+  long lastTimestamp;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  @NonFinal
+  volatile long committedPosition;
+
   Appender (LogFile.Config config, BytesPool pool) {
+    this(config, pool, null, null);
+  }
+
+  @SneakyThrows
+  Appender (LogFile.Config config, BytesPool pool, SequenceIndex sequenceIndex, TimeIndex timeIndex) {
+    this.sequenceIndex = sequenceIndex;
+    this.timeIndex = timeIndex;
     forceFlush = config.getForceFlush();
+    metrics = config.getMetrics();
+    metered = metrics != LogFileMetrics.NOOP;
+    this.pool = pool;
+    lock = new ReentrantLock();
+    appended = lock.newCondition();
 
-    channel = FileChannel.open(config.getPath(), CREATE, WRITE, READ);
-    if (channel.size() == 0) {
-      val header = new Header(config);
-      header.write(channel);
-      val buffer = pool.acquire(config.getBlockBufferSizeBytes());
-      block = new Block(buffer);
-    } else {
-      val header = Header.read(channel);
-      val buffer = pool.acquire(header.getBlockBytes());
-      block = new Block(buffer);
+    val channel = FileChannel.open(config.getPath(), CREATE, WRITE, READ);
+    val header = Header.readOrWrite(channel, config);
+    checkpoint = config.getRecovery().isCheckpoint()
+                 ? config.getPath()
+                 : null;
+    blockBytes = header.getBlockBytes();
+    checksumType = header.checksumType();
+    directBuffers = config.getDirectBuffers();
+    block = Block.allocate(pool, blockBytes, checksumType, directBuffers);
+    timestamps = header.hasTimestamps();
+    compression = header.hasCompression()
+                  ? config.getCompression().getCodec()
+                  : null;
+    staged = Bytes.resizableArray();
+    compressed = Bytes.resizableArray();
+    lastTimestamp = timeIndex == null
+                    ? 0
+                    : timeIndex.lastTimestamp();
 
-      val size = channel.size();
-      channel.position(size);
+    val blockOffset = (channel.size() - Header.BYTES) % blockBytes;
+    block.seek((int) blockOffset);
 
-      val blockOffset = (size - Header.BYTES) % header.getBlockBytes();
-      block.seek((int) blockOffset);
-    }
+    sink = BlockSink.open(channel, config, blockBytes);
+    committedPosition = sink.position();
+    groupCommit = forceFlush && config.getGroupCommit().isEnabled()
+                  ? new GroupCommit(sink, config.getGroupCommit())
+                  : null;
   }
 
   @Override
-  @SneakyThrows
   public void close () {
-    block.flush(channel);
-    block.close();
-    channel.close();
+    lock.lock();
+    try {
+      block.flush(sink);
+      block.close();
+      if (checkpoint != null) {
+        sink.force();
+      }
+      val size = sink.position();
+      sink.close();
+      if (checkpoint != null) {
+        TailRecovery.checkpoint(checkpoint, size);
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
-  @SneakyThrows
   void reset () {
-    block.reset();
-    channel.truncate(Header.BYTES);
+    lock.lock();
+    try {
+      block.reset();
+      sink.truncate(Header.BYTES);
+      if (sequenceIndex != null) {
+        sequenceIndex.reset();
+      }
+      if (timeIndex != null) {
+        timeIndex.reset();
+      }
+      commit();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  @SneakyThrows
   long append (Bytes record) {
-    boolean continueWrite;
-    do {
-      continueWrite = block.write(record);
-      block.flush(channel);
+    val start = metered == true
+                ? System.nanoTime()
+                : 0L;
+    val bytes = record.readableBytes();
+    long position;
+    long end;
+    lock.lock();
+    try {
+      position = write(record);
+      end = sink.position();
+      commit();
+    } finally {
+      lock.unlock();
+    }
+
+    if (groupCommit != null) {
+      groupCommit.sync(end);
+    }
+    if (metered == true) {
+      metrics.onAppend(1, bytes, System.nanoTime() - start);
+    }
+    return position;
+  }
+
+  long[] appendAll (Collection<Bytes> records) {
+    long start = 0;
+    long bytes = 0;
+    if (metered == true) {
+      start = System.nanoTime();
+      for (val record : records) {
+        bytes += record.readableBytes();
+      }
+    }
+    long[] positions;
+    long position;
+    lock.lock();
+    try {
+      positions = write(records);
+      position = sink.position();
+      commit();
+    } finally {
+      lock.unlock();
+    }
+
+    if (groupCommit != null) {
+      groupCommit.sync(position);
+    }
+    if (metered == true) {
+      metrics.onAppend(records.size(), bytes, System.nanoTime() - start);
+    }
+    return positions;
+  }
+
+  /**
+   * Returns the position, up to which the records are completely written to the file.
+   *
+   * @return the committed position.
+   */
+  long committedPosition () {
+    return committedPosition;
+  }
+
+  /**
+   * Waits until the committed position is changed from the specified one.
+   *
+   * @param position the last known committed position.
+   *
+   * @param timeoutNanos the maximum time to wait, in nanoseconds.
+   *
+   * @return {@code true} if the committed position is changed, {@code false} if the time is elapsed.
+   */
+  @SneakyThrows
+  boolean awaitAppend (long position, long timeoutNanos) {
+    lock.lock();
+    try {
+      long nanos = timeoutNanos;
+      while (committedPosition == position) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = appended.awaitNanos(nanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void commit () {
+    committedPosition = sink.position();
+    appended.signalAll();
+  }
+
+  private long[] write (Collection<Bytes> records) {
+    val positions = new long[records.size()];
+    val blocks = new ArrayList<Block>();
+    blocks.add(block);
 
-      if (forceFlush) {
-        channel.force(false);
+    long stagedBytes = 0;
+    int index = 0;
+    for (val record : records) {
+      if (block.isFull()) {
+        stagedBytes = nextBlock(blocks, stagedBytes);
       }
-    } while (continueWrite);
-    return channel.position();
+      val recordPosition = sink.position() + stagedBytes + block.pendingBytes();
+      positions[index++] = recordPosition;
+
+      val source = prepare(record);
+      while (block.write(source)) {
+        stagedBytes = nextBlock(blocks, stagedBytes);
+      }
+      index(recordPosition);
+    }
+
+    flush(blocks);
+    if (forceFlush && groupCommit == null) {
+      sink.force();
+    }
+    return positions;
+  }
+
+  /**
+   * Continues the writing in the next block, when the current one is full. The full block is staged,
+   * until there are {@link #MAX_STAGED_BLOCKS} of them, then all the staged blocks are written
+   * and the current block is reused.
+   *
+   * @param blocks the staged blocks, the last one is the current block.
+   *
+   * @param stagedBytes the number of the staged, but not written, bytes.
+   *
+   * @return the new number of the staged bytes.
+   */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  private long nextBlock (List<Block> blocks, long stagedBytes) {
+    if (blocks.size() >= MAX_STAGED_BLOCKS) {
+      flush(blocks);
+      blocks.clear();
+      blocks.add(block);
+      return 0;
+    }
+    val result = stagedBytes + block.pendingBytes();
+    block = Block.allocate(pool, blockBytes, checksumType, directBuffers);
+    blocks.add(block);
+    return result;
+  }
+
+  /**
+   * Writes the record. The record, which spans several blocks, is staged in the new blocks
+   * and written with the gathering writes of up to {@link #MAX_STAGED_BLOCKS} blocks,
+   * like the {@link #write(Collection) batch} does. The file is forced once, after all the writes.
+   *
+   * @param record the record's content.
+   *
+   * @return the record's position.
+   */
+  private long write (Bytes record) {
+    val position = sink.position() + block.pendingBytes();
+    val source = prepare(record);
+    if (block.write(source) == false) {
+      block.flush(sink);
+      reportPadding(block);
+    } else {
+      val blocks = new ArrayList<Block>();
+      blocks.add(block);
+      long stagedBytes = 0;
+      do {
+        stagedBytes = nextBlock(blocks, stagedBytes);
+      } while (block.write(source));
+      flush(blocks);
+    }
+
+    if (forceFlush && groupCommit == null) {
+      sink.force();
+    }
+    index(position);
+    return position;
+  }
+
+  /**
+   * Writes the staged blocks and releases all of them, except the last one, which is the current block.
+   *
+   * @param blocks the staged blocks.
+   */
+  private void flush (List<Block> blocks) {
+    Block.flush(sink, blocks);
+    for (int index = 0; index < blocks.size() - 1; index++) {
+      reportPadding(blocks.get(index));
+      blocks.get(index).close();
+    }
+    reportPadding(block);
+  }
+
+  private Bytes prepare (Bytes record) {
+    if (timestamps == false && compression == null) {
+      return record;
+    }
+
+    staged.reset();
+    if (timestamps == true) {
+      lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+      staged.write8B(lastTimestamp);
+    }
+
+    val offset = record.readerIndex();
+    val length = record.readableBytes();
+    if (compression == null) {
+      staged.writeNB(record.array(), offset, length);
+    } else {
+      compressed.reset();
+      compression.compress(record, compressed);
+      if (compressed.readableBytes() < length) {
+        staged.write1B(compression.getId());
+        staged.writeNB(compressed.array(), compressed.readerIndex(), compressed.readableBytes());
+      } else {
+        staged.write1B(CompressionCodec.STORED_ID);
+        staged.writeNB(record.array(), offset, length);
+      }
+    }
+    record.readerIndex(record.writerIndex());
+    return staged;
+  }
+
+  private void reportPadding (Block written) {
+    val paddingBytes = written.takePaddingBytes();
+    if (paddingBytes > 0) {
+      metrics.onPadding(paddingBytes);
+    }
+  }
+
+  private void index (long position) {
+    if (sequenceIndex != null) {
+      sequenceIndex.add(position);
+    }
+    if (timeIndex != null) {
+      timeIndex.add(lastTimestamp, position);
+    }
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import io.appulse.utils.Bytes;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The appender, which accepts records into a bounded lock-free {@link MpscRing ring buffer}
+ * and writes them from a single dedicated writer thread.
+ * <p>
+ * The writer thread drains all the available records at once and appends
+ * them as a batch, so under load the records are written and forced together.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class AsyncAppender implements AutoCloseable {
+
+  private static final long POLL_TIMEOUT_NANOS = MILLISECONDS.toNanos(100);
+
+  Appender appender;
+
+  MpscRing<Entry> ring;
+
+  Backpressure backpressure;
+
+  int maxBatchSize;
+
+  AtomicBoolean running;
+
+  /**
+   * The number of the in-progress {@link #append(Bytes) appends}. The writer thread keeps draining
+   * the ring after the close, until all of them are done, so no record is left in the ring.
+   */
+  AtomicInteger producers;
+
+  Thread writer;
+
+  AsyncAppender (Appender appender, LogFile.Config config) {
+    this.appender = appender;
+
+    val asyncConfig = config.getAsync();
+    ring = new MpscRing<>(asyncConfig.getRingSize());
+    backpressure = asyncConfig.getBackpressure();
+    maxBatchSize = asyncConfig.getMaxBatchSize();
+    running = new AtomicBoolean(true);
+    producers = new AtomicInteger();
+
+    writer = new Thread(this::run, "log-file-writer-" + config.getPath().getFileName());
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  @SneakyThrows
+  public void close () {
+    if (running.compareAndSet(true, false) == false) {
+      return;
+    }
+    LockSupport.unpark(writer);
+    writer.join();
+  }
+
+  CompletableFuture<Long> append (Bytes record) {
+    val entry = new Entry(record, new CompletableFuture<>());
+    val future = entry.getFuture();
+    producers.incrementAndGet();
+    try {
+      if (running.get() == false) {
+        future.completeExceptionally(new IllegalStateException("the appender is closed"));
+        return future;
+      }
+      enqueue(entry);
+    } finally {
+      producers.decrementAndGet();
+    }
+    return future;
+  }
+
+  private void enqueue (Entry entry) {
+    val future = entry.getFuture();
+    switch (backpressure) {
+    case BLOCK:
+      ring.put(entry);
+      break;
+    case FAIL:
+      if (ring.offer(entry) == false) {
+        future.completeExceptionally(new RejectedExecutionException("the ring buffer is full"));
+      }
+      break;
+    case DROP:
+      if (ring.offer(entry) == false) {
+        future.complete(-1L);
+      }
+      break;
+    default:
+      throw new IllegalStateException("Unsupported backpressure " + backpressure);
+    }
+  }
+
+  private void run () {
+    val batch = new ArrayList<Entry>(maxBatchSize);
+    val records = new ArrayList<Bytes>(maxBatchSize);
+    while (running.get() == true || producers.get() > 0 || ring.isEmpty() == false) {
+      val first = ring.take(POLL_TIMEOUT_NANOS);
+      if (first == null) {
+        continue;
+      }
+      batch.add(first);
+      ring.drainTo(batch, maxBatchSize - 1);
+
+      write(batch, records);
+      batch.clear();
+      records.clear();
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private void write (List<Entry> batch, List<Bytes> records) {
+    for (val entry : batch) {
+      records.add(entry.getRecord());
+    }
+
+    long[] positions;
+    try {
+      positions = appender.appendAll(records);
+    } catch (Throwable ex) {
+      for (val entry : batch) {
+        entry.getFuture().completeExceptionally(ex);
+      }
+      return;
+    }
+
+    for (int index = 0; index < positions.length; index++) {
+      batch.get(index).getFuture().complete(positions[index]);
+    }
+  }
+
+  @Value
+  private static class Entry {
+
+    Bytes record;
+
+    CompletableFuture<Long> future;
+  }
+}
@@ -16,29 +16,24 @@
 
 package com.xxlabaza.utils.log.file;
 
-import java.nio.file.Path;
-import java.util.LinkedHashMap;
-import java.util.Map;
-
-import lombok.val;
-
-class LruCache extends LinkedHashMap<Path, LogFile> {
-
-  private static final long serialVersionUID = 627252465946108735L;
-
-  int maxSize;
-
-  LruCache (int maxSize) {
-    super(maxSize, 1.F, true);
-    this.maxSize = maxSize;
-  }
-
-  @Override
-  protected boolean removeEldestEntry (Map.Entry<Path, LogFile> eldest) {
-    val shouldRemove = size() > maxSize;
-    if (shouldRemove == true) {
-      eldest.getValue().close();
-    }
-    return shouldRemove;
-  }
+/**
+ * The asynchronous appender's behaviour, when its ring buffer is full.
+ */
+public enum Backpressure {
+
+  /**
+   * The caller's thread blocks until there is a free slot in the ring buffer.
+   */
+  BLOCK,
+
+  /**
+   * The record is rejected and the returned future is completed exceptionally
+   * with {@link java.util.concurrent.RejectedExecutionException}.
+   */
+  FAIL,
+
+  /**
+   * The record is silently discarded and the returned future is completed with {@code -1}.
+   */
+  DROP;
 }
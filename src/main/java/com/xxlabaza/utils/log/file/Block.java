@@ -21,35 +21,130 @@ import static com.xxlabaza.utils.log.file.Record.Type.FULL;
 import static com.xxlabaza.utils.log.file.Record.Type.LAST;
 import static com.xxlabaza.utils.log.file.Record.Type.MIDDLE;
 import static com.xxlabaza.utils.log.file.Record.Type.UNDEFINED;
-import static java.util.Arrays.asList;
 import static lombok.AccessLevel.PRIVATE;
 
-import java.nio.channels.FileChannel;
-import java.util.HashSet;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import com.xxlabaza.utils.log.file.Record.Type;
 
 import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
 import io.appulse.utils.BytesPool.PooledBytes;
 import io.appulse.utils.HexUtil;
-import io.appulse.utils.ReadBytesUtils;
-import io.appulse.utils.WriteBytesUtils;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.val;
 
-@RequiredArgsConstructor
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 final class Block implements AutoCloseable {
 
-  @NonNull
-  PooledBytes buffer;
+  /**
+   * Writes the pending bytes of all the blocks with a single gathering write.
+   * The fully written blocks are reset after that.
+   *
+   * @param sink the destination sink.
+   *
+   * @param blocks the blocks with pending content.
+   */
+  static void flush (BlockSink sink, List<Block> blocks) {
+    val buffers = new ByteBuffer[blocks.size()];
+    for (int index = 0; index < buffers.length; index++) {
+      buffers[index] = blocks.get(index).pendingBuffer();
+    }
+    sink.write(buffers);
+
+    for (val block : blocks) {
+      block.markFlushed();
+    }
+  }
+
+  /**
+   * The types of the chunks, which start the records.
+   */
+  static final int RECORD_START_TYPES = Type.mask(FIRST, FULL);
+
+  private static final int SCRATCH_BYTES = 512;
+
+  private static final Bytes NO_PREFIX = Bytes.allocate(0);
+
+  /**
+   * Creates a new block with a heap buffer from the pool or with a direct buffer.
+   *
+   * @param pool the heap buffers pool.
+   *
+   * @param blockBytes the block's size, in bytes.
+   *
+   * @param checksumType the file's checksum algorithm.
+   *
+   * @param direct {@code true} for the direct block's buffer.
+   *
+   * @return the new block.
+   */
+  static Block allocate (BytesPool pool, int blockBytes, ChecksumType checksumType, boolean direct) {
+    return direct
+           ? new Block(DirectBufferPool.INSTANCE.acquire(blockBytes), null, checksumType)
+           : new Block(pool.acquire(blockBytes), checksumType);
+  }
+
+  /**
+   * The block's content, a heap or a direct one. The chunks are accessed
+   * by the absolute indexes, the buffer's position is used only for the bulk copies.
+   */
+  ByteBuffer data;
+
+  PooledBytes pooled;
+
+  int capacity;
+
+  ChecksumType checksumType;
+
+  /**
+   * The reusable view of the pending bytes for the block's writes.
+   */
+  ByteBuffer flushView;
+
+  /**
+   * The intermediate array for copying the direct buffer's bytes.
+   */
+  byte[] scratch;
+
+  @NonFinal
+  int readerIndex;
+
+  @NonFinal
+  int writerIndex;
+
+  @NonFinal
+  int paddingBytes;
+
+  Block (PooledBytes buffer) {
+    this(buffer, ChecksumType.CRC32);
+  }
+
+  Block (@NonNull PooledBytes buffer, @NonNull ChecksumType checksumType) {
+    this(ByteBuffer.wrap(buffer.array(), 0, buffer.capacity()).slice(), buffer, checksumType);
+  }
+
+  private Block (@NonNull ByteBuffer data, PooledBytes pooled, @NonNull ChecksumType checksumType) {
+    this.data = data;
+    this.pooled = pooled;
+    this.checksumType = checksumType;
+    capacity = data.capacity();
+    flushView = data.duplicate();
+    scratch = data.hasArray()
+              ? null
+              : new byte[Math.min(capacity, SCRATCH_BYTES)];
+  }
 
   @Override
   public void close () {
-    buffer.release();
+    if (pooled == null) {
+      DirectBufferPool.INSTANCE.release(data);
+    } else {
+      pooled.release();
+    }
   }
 
   @Override
@@ -59,21 +154,25 @@ final class Block implements AutoCloseable {
   }
 
   byte[] getBytes () {
-    return buffer.arrayCopy();
+    val bytes = new byte[writerIndex];
+    data.position(0);
+    data.get(bytes);
+    return bytes;
   }
 
   void reset () {
-    buffer.reset();
+    readerIndex = 0;
+    writerIndex = 0;
   }
 
   boolean write (Bytes record) {
-    if (buffer.isWritable() == false) {
-      buffer.reset();
+    if (isFull()) {
+      reset();
       return true;
     }
 
     val isFirstOrFullRecord = record.readerIndex() == 0;
-    val isFullyFit = buffer.isWritable(Record.Header.BYTES + record.readableBytes());
+    val isFullyFit = capacity - writerIndex >= Record.Header.BYTES + record.readableBytes();
 
     Type type;
     if (isFirstOrFullRecord) {
@@ -90,82 +189,205 @@ final class Block implements AutoCloseable {
   }
 
   Type read (Bytes record) {
-    return Record.read(record, buffer);
+    return read(record, NO_PREFIX);
   }
 
-  void flush (FileChannel channel) {
-    WriteBytesUtils.write(channel, buffer);
-    if (buffer.isWritable() == false) {
-      reset();
+  Type read (Bytes record, Bytes prefix) {
+    val type = Record.check(data, readerIndex, writerIndex, checksumType);
+    if (type != UNDEFINED) {
+      val offset = readerIndex + Record.Header.BYTES;
+      val length = Record.getLength(data, readerIndex, writerIndex);
+      val prefixLength = Math.min(prefix.writableBytes(), length);
+      Record.copy(data, offset, prefixLength, prefix, scratch);
+      Record.copy(data, offset + prefixLength, length - prefixLength, record, scratch);
+      readerIndex = offset + length;
+    }
+    return type;
+  }
+
+  /**
+   * Reads the next record without copying, if it is a {@link Type#FULL} one.
+   * The other records are copied to the record buffer.
+   *
+   * @param record the buffer for the multi-block record's chunks.
+   *
+   * @param view the block's {@link #view() view}, which is set to the full record's body.
+   *
+   * @param prefix the record's prefix buffer, which is filled before the record's body.
+   *
+   * @return the readed record's type.
+   */
+  Type read (Bytes record, ByteBuffer view, Bytes prefix) {
+    if (Record.getType(data, readerIndex, writerIndex) != FULL) {
+      return read(record, prefix);
+    }
+
+    val type = Record.check(data, readerIndex, writerIndex, checksumType);
+    if (type == FULL) {
+      val offset = readerIndex + Record.Header.BYTES;
+      val length = Record.getLength(data, readerIndex, writerIndex);
+      val prefixLength = Math.min(prefix.writableBytes(), length);
+      Record.copy(data, offset, prefixLength, prefix, scratch);
+      readerIndex = offset + length;
+
+      view.clear();
+      view.limit(readerIndex);
+      view.position(offset + prefixLength);
     }
+    return type;
+  }
+
+  ByteBuffer view () {
+    return data.asReadOnlyBuffer();
+  }
+
+  void flush (BlockSink sink) {
+    sink.write(pendingBuffer());
+    markFlushed();
+  }
+
+  boolean isFull () {
+    return writerIndex >= capacity;
+  }
+
+  int pendingBytes () {
+    return writerIndex - readerIndex;
   }
 
   void seek (int offset) {
-    buffer.writerIndex(offset);
-    buffer.readerIndex(offset);
+    writerIndex = offset;
+    readerIndex = offset;
+  }
+
+  void moveReaderTo (int offset) {
+    readerIndex = offset;
+  }
+
+  void limit (int bytes) {
+    writerIndex = bytes;
+  }
+
+  int readerOffset () {
+    return readerIndex;
   }
 
   int capacity () {
-    return buffer.capacity();
+    return capacity;
   }
 
   boolean hasContent () {
-    return buffer.isReadable(Record.Header.BYTES + 1);
+    return writerIndex - readerIndex >= Record.Header.BYTES + 1;
   }
 
-  @SneakyThrows
-  boolean loadNext (FileChannel channel) {
-    if (buffer.readerIndex() == 0 && buffer.writerIndex() == 0) {
-      return ReadBytesUtils.read(channel, buffer) > 0;
-    }
+  /**
+   * Checks, that the next chunk's body lies within the loaded content.
+   * A chunk, which goes beyond it, is either torn or still being written.
+   *
+   * @return {@code true} if the whole next chunk is loaded.
+   */
+  boolean hasWholeChunk () {
+    val length = Record.getLength(data, readerIndex, writerIndex);
+    return readerIndex + Record.Header.BYTES + length <= writerIndex;
+  }
 
-    val currentPosition = channel.position();
-    val nextBlockPosition = currentPosition + buffer.writableBytes();
-    if (nextBlockPosition >= channel.size()) {
-      return false;
-    }
-    channel.position(nextBlockPosition);
+  /**
+   * Returns the number of the padding bytes, written since the previous call.
+   *
+   * @return the padding bytes count.
+   */
+  int takePaddingBytes () {
+    val result = paddingBytes;
+    paddingBytes = 0;
+    return result;
+  }
 
-    buffer.reset();
-    val readed = ReadBytesUtils.read(channel, buffer);
-    return readed > 0;
+  int load (BlockSource source, long position) {
+    reset();
+    data.clear();
+    writerIndex = source.read(position, data);
+    return writerIndex;
   }
 
-  boolean moveTo (Type... types) {
-    val searchTypes = new HashSet<>(asList(types));
+  /**
+   * Moves the block's reader to the next chunk of one of the types.
+   *
+   * @param types the chunks' types {@link Type#mask(Type...) mask}.
+   *
+   * @return {@code true} if the chunk is found, {@code false} otherwise.
+   */
+  boolean moveTo (int types) {
     while (true) {
-      val type = Record.getType(buffer);
-      if (searchTypes.contains(type)) {
+      val type = Record.getType(data, readerIndex, writerIndex);
+      if (type.in(types)) {
         return true;
       }
       if (type == UNDEFINED) {
         return false;
       }
 
-      val recordPayloadLength = Record.getLength(buffer);
-      val recordLength = Record.Header.BYTES + recordPayloadLength;
-      if (buffer.isReadable(recordLength) == false) {
+      val recordLength = Record.Header.BYTES + Record.getLength(data, readerIndex, writerIndex);
+      if (writerIndex - readerIndex < recordLength) {
         return false;
       }
+      readerIndex += recordLength;
+    }
+  }
+
+  /**
+   * Collects the offsets of the chunks, which start the records, in the block's order.
+   *
+   * @param offsets the destination array, which must fit all the block's chunks.
+   *
+   * @return the number of the collected offsets.
+   */
+  int recordOffsets (int[] offsets) {
+    int count = 0;
+    readerIndex = 0;
+    while (true) {
+      val type = Record.getType(data, readerIndex, writerIndex);
+      if (type == UNDEFINED) {
+        return count;
+      }
+      if (type == FIRST || type == FULL) {
+        offsets[count++] = readerIndex;
+      }
+
+      val recordLength = Record.Header.BYTES + Record.getLength(data, readerIndex, writerIndex);
+      if (writerIndex - readerIndex < recordLength) {
+        return count;
+      }
+      readerIndex += recordLength;
+    }
+  }
+
+  private ByteBuffer pendingBuffer () {
+    flushView.clear();
+    flushView.position(readerIndex);
+    flushView.limit(writerIndex);
+    return flushView;
+  }
 
-      val currentReaderIndex = buffer.readerIndex();
-      val newReaderIndex = currentReaderIndex + recordLength;
-      buffer.readerIndex(newReaderIndex);
+  private void markFlushed () {
+    readerIndex = writerIndex;
+    if (isFull()) {
+      reset();
     }
   }
 
   private void write (Record.Type type, Bytes record) {
-    Record.write(buffer, type, record);
+    val length = Math.min(capacity - writerIndex - Record.Header.BYTES, record.readableBytes());
+    writerIndex = Record.write(data, writerIndex, type, record, length, checksumType);
     align();
   }
 
   private void align () {
-    val writableBytes = buffer.writableBytes();
+    val writableBytes = capacity - writerIndex;
     if (writableBytes > Record.Header.BYTES) {
       return;
     }
     for (int index = 0; index < writableBytes; index++) {
-      buffer.write1B(0);
+      data.put(writerIndex++, (byte) 0);
     }
+    paddingBytes += writableBytes;
   }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The destination of a log file's bytes, which always appends to its logical end.
+ */
+interface BlockSink extends AutoCloseable {
+
+  /**
+   * Creates a new sink over the log file's channel according to its write mode.
+   * The sink owns the channel since then.
+   *
+   * @param channel the opened log file's channel, with already written header.
+   *
+   * @param config the log file's configuration.
+   *
+   * @param blockBytes the log file's block size, in bytes.
+   *
+   * @return the new block sink.
+   */
+  static BlockSink open (FileChannel channel, LogFile.Config config, int blockBytes) {
+    BlockSink sink;
+    switch (config.getWriteMode()) {
+    case CHANNEL:
+      sink = new ChannelBlockSink(channel);
+      break;
+    case MEMORY_MAPPED:
+      sink = new MappedBlockSink(channel, config.getMappedWindowBytes(), blockBytes, config.getForceFlush());
+      break;
+    default:
+      throw new IllegalArgumentException("Unsupported write mode " + config.getWriteMode());
+    }
+    return config.getMetrics() == LogFileMetrics.NOOP
+           ? sink
+           : new MeteredBlockSink(sink, config.getMetrics());
+  }
+
+  /**
+   * Returns the sink's logical end, where the next written bytes go.
+   *
+   * @return the current position.
+   */
+  long position ();
+
+  /**
+   * Writes all the remaining bytes of the buffers.
+   *
+   * @param buffers the buffers to write.
+   */
+  void write (ByteBuffer... buffers);
+
+  /**
+   * Forces all the written bytes to the storage device.
+   */
+  void force ();
+
+  /**
+   * Truncates the sink to the given size.
+   *
+   * @param size the new size, in bytes.
+   */
+  void truncate (long size);
+
+  @Override
+  void close ();
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import java.nio.ByteBuffer;
+
+import lombok.val;
+
+/**
+ * The source of a log file's bytes, which supports positional reads.
+ */
+interface BlockSource extends AutoCloseable {
+
+  /**
+   * Creates a new source for the log file according to its read mode.
+   *
+   * @param config the log file's configuration.
+   *
+   * @param blockBytes the log file's block size, in bytes.
+   *
+   * @return the new block source.
+   */
+  static BlockSource open (LogFile.Config config, int blockBytes) {
+    switch (config.getReadMode()) {
+    case CHANNEL:
+    case PIPELINED:
+      return metered(new ChannelBlockSource(config.getPath()), config);
+    case MEMORY_MAPPED:
+      return metered(new MappedBlockSource(config.getPath(), config.getMappedWindowBytes(), blockBytes), config);
+    default:
+      throw new IllegalArgumentException("Unsupported read mode " + config.getReadMode());
+    }
+  }
+
+  /**
+   * Creates a new source for the sequential scans of the log file. It reads the file ahead
+   * in the {@link ReadMode#PIPELINED pipelined} read mode, and it is the same as
+   * the {@link #open(LogFile.Config, int) regular} source otherwise.
+   *
+   * @param config the log file's configuration.
+   *
+   * @param blockBytes the log file's block size, in bytes.
+   *
+   * @return the new block source.
+   */
+  static BlockSource sequential (LogFile.Config config, int blockBytes) {
+    if (config.getReadMode() != ReadMode.PIPELINED) {
+      return open(config, blockBytes);
+    }
+    val source = new ChannelBlockSource(config.getPath());
+    return metered(new PrefetchingBlockSource(source, config, blockBytes), config);
+  }
+
+  /**
+   * Wraps the source for reporting its loads, if the log file has the {@link LogFileMetrics metrics}.
+   *
+   * @param source the source to wrap.
+   *
+   * @param config the log file's configuration.
+   *
+   * @return the metered or the original source.
+   */
+  static BlockSource metered (BlockSource source, LogFile.Config config) {
+    return config.getMetrics() == LogFileMetrics.NOOP
+           ? source
+           : new MeteredBlockSource(source, config.getMetrics());
+  }
+
+  /**
+   * Returns the current size of the source, in bytes.
+   *
+   * @return the source size.
+   */
+  long size ();
+
+  /**
+   * Reads bytes, starting at the given position, into the destination's remaining space.
+   *
+   * @param position the source's position to read from.
+   *
+   * @param destination the buffer, whose position is moved forward by the number of read bytes.
+   *
+   * @return the number of read bytes, possibly zero.
+   */
+  int read (long position, ByteBuffer destination);
+
+  @Override
+  void close ();
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class ChannelBlockSink implements BlockSink {
+
+  FileChannel channel;
+
+  @SneakyThrows
+  ChannelBlockSink (FileChannel channel) {
+    this.channel = channel;
+    channel.position(channel.size());
+  }
+
+  @Override
+  @SneakyThrows
+  public long position () {
+    return channel.position();
+  }
+
+  @Override
+  @SneakyThrows
+  public void write (ByteBuffer... buffers) {
+    val last = buffers[buffers.length - 1];
+    do {
+      channel.write(buffers);
+    } while (last.hasRemaining());
+  }
+
+  @Override
+  @SneakyThrows
+  public void force () {
+    channel.force(false);
+  }
+
+  @Override
+  @SneakyThrows
+  public void truncate (long size) {
+    channel.truncate(size);
+  }
+
+  @Override
+  @SneakyThrows
+  public void close () {
+    channel.close();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class ChannelBlockSource implements BlockSource {
+
+  FileChannel channel;
+
+  @SneakyThrows
+  ChannelBlockSource (Path path) {
+    channel = FileChannel.open(path, READ);
+  }
+
+  @Override
+  @SneakyThrows
+  public long size () {
+    return channel.size();
+  }
+
+  @Override
+  @SneakyThrows
+  public int read (long position, ByteBuffer destination) {
+    int total = 0;
+    while (destination.hasRemaining()) {
+      val readed = channel.read(destination, position + total);
+      if (readed <= 0) {
+        break;
+      }
+      total += readed;
+    }
+    return total;
+  }
+
+  @Override
+  @SneakyThrows
+  public void close () {
+    channel.close();
+  }
+}
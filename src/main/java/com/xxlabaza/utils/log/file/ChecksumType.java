@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * The records' checksum algorithm. The algorithm is selected on a file's creation
+ * and is recorded in its header. The checksum instances are reused per thread.
+ */
+public enum ChecksumType {
+
+  /**
+   * The {@link CRC32} checksum, the format's original one.
+   */
+  CRC32(0) {
+
+    @Override
+    boolean isSupported () {
+      return true;
+    }
+
+    @Override
+    Checksum newChecksum () {
+      return new CRC32();
+    }
+
+    @Override
+    void update (Checksum checksum, ByteBuffer buffer) {
+      ((CRC32) checksum).update(buffer);
+    }
+  },
+
+  /**
+   * The CRC32C (Castagnoli) checksum, which is intrinsified on the modern CPUs.
+   * It is available since Java 9.
+   */
+  CRC32C(1) {
+
+    @Override
+    boolean isSupported () {
+      return Crc32c.CONSTRUCTOR != null;
+    }
+
+    @Override
+    @SneakyThrows
+    Checksum newChecksum () {
+      if (isSupported() == false) {
+        throw new UnsupportedOperationException("CRC32C checksum requires Java 9 or later");
+      }
+      return Crc32c.CONSTRUCTOR.newInstance();
+    }
+
+    @Override
+    @SneakyThrows
+    void update (Checksum checksum, ByteBuffer buffer) {
+      Crc32c.UPDATE.invokeExact(checksum, buffer);
+    }
+  };
+
+  static ChecksumType from (int code) {
+    for (val type : values()) {
+      if (type.getCode() == code) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  @Getter
+  private final int code;
+
+  private final ThreadLocal<Checksum> checksums;
+
+  ChecksumType (int code) {
+    this.code = code;
+    checksums = ThreadLocal.withInitial(this::newChecksum);
+  }
+
+  abstract boolean isSupported ();
+
+  abstract Checksum newChecksum ();
+
+  abstract void update (Checksum checksum, ByteBuffer buffer);
+
+  long calculate (byte[] bytes, int offset, int length) {
+    val checksum = checksums.get();
+    checksum.reset();
+    checksum.update(bytes, offset, length);
+    return checksum.getValue();
+  }
+
+  /**
+   * Calculates the checksum of the buffer's range, the buffer could be a heap or a direct one.
+   * The buffer's limit is preserved, but its position is not.
+   *
+   * @param buffer the buffer.
+   *
+   * @param offset the range's start index.
+   *
+   * @param length the range's length.
+   *
+   * @return the checksum's value.
+   */
+  long calculate (ByteBuffer buffer, int offset, int length) {
+    if (buffer.hasArray()) {
+      return calculate(buffer.array(), buffer.arrayOffset() + offset, length);
+    }
+    val checksum = checksums.get();
+    checksum.reset();
+
+    val limit = buffer.limit();
+    buffer.limit(offset + length);
+    buffer.position(offset);
+    update(checksum, buffer);
+    buffer.limit(limit);
+    return checksum.getValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final class Crc32c {
+
+    static final Constructor<? extends Checksum> CONSTRUCTOR;
+
+    static final MethodHandle UPDATE;
+
+    static {
+      Constructor<? extends Checksum> constructor;
+      MethodHandle update;
+      try {
+        val type = Class.forName("java.util.zip.CRC32C");
+        constructor = (Constructor<? extends Checksum>) type.getConstructor();
+        update = MethodHandles.publicLookup()
+            .findVirtual(type, "update", MethodType.methodType(void.class, ByteBuffer.class))
+            .asType(MethodType.methodType(void.class, Checksum.class, ByteBuffer.class));
+      } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ex) {
+        constructor = null;
+        update = null;
+      }
+      CONSTRUCTOR = constructor;
+      UPDATE = update;
+    }
+
+    private Crc32c () {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
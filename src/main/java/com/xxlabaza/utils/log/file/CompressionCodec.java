@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import io.appulse.utils.Bytes;
+
+/**
+ * The records' compression codec.
+ * <p>
+ * The custom codecs are discovered with {@link java.util.ServiceLoader}, so the files,
+ * written with them, are readable without an explicit configuration.
+ */
+public interface CompressionCodec {
+
+  /**
+   * The identifier of the stored records, which are not compressed,
+   * because the compression does not reduce their size.
+   */
+  byte STORED_ID = 0;
+
+  /**
+   * Returns the codec's identifier, which is written with every compressed record.
+   * The identifiers from 0 to 15 are reserved for the built-in codecs.
+   *
+   * @return the codec's identifier.
+   */
+  byte getId ();
+
+  /**
+   * Compresses the source's readable bytes and writes them to the destination.
+   * The implementation must be thread-safe.
+   *
+   * @param source the uncompressed bytes.
+   *
+   * @param destination the buffer for the compressed bytes.
+   */
+  void compress (Bytes source, Bytes destination);
+
+  /**
+   * Decompresses the source's readable bytes and writes them to the destination.
+   * The implementation must be thread-safe.
+   *
+   * @param source the compressed bytes.
+   *
+   * @param destination the buffer for the decompressed bytes.
+   */
+  void decompress (Bytes source, Bytes destination);
+}
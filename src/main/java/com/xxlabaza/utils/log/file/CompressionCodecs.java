@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import lombok.val;
+
+/**
+ * The registry of the known compression codecs: the built-in ones and
+ * the ones, which are discovered with {@link ServiceLoader}.
+ */
+final class CompressionCodecs {
+
+  private static final Map<Byte, CompressionCodec> CODECS = load();
+
+  static CompressionCodec get (byte id, CompressionCodec preferred) {
+    if (preferred.getId() == id) {
+      return preferred;
+    }
+    val codec = CODECS.get(id);
+    if (codec == null) {
+      throw new IllegalStateException("Unknown compression codec " + id);
+    }
+    return codec;
+  }
+
+  private static Map<Byte, CompressionCodec> load () {
+    val result = new HashMap<Byte, CompressionCodec>();
+    result.put(DeflateCodec.ID, new DeflateCodec());
+    for (val codec : ServiceLoader.load(CompressionCodec.class)) {
+      result.putIfAbsent(codec.getId(), codec);
+    }
+    return result;
+  }
+
+  private CompressionCodecs () {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.CompressionCodec.STORED_ID;
+import static lombok.AccessLevel.PRIVATE;
+
+import io.appulse.utils.Bytes;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Restores the records' bodies in the log files with the
+ * {@link Header#hasCompression() compression}. The codec's identifier
+ * is the last byte of the record's prefix.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Decompressor {
+
+  boolean enabled;
+
+  CompressionCodec preferred;
+
+  Bytes output;
+
+  Decompressor (Header header, LogFile.Config config) {
+    enabled = header.hasCompression();
+    preferred = config.getCompression().getCodec();
+    output = Bytes.resizableArray();
+  }
+
+  boolean isEnabled () {
+    return enabled;
+  }
+
+  /**
+   * Decodes the record into the decompressor's reusable buffer.
+   *
+   * @param record the readed record's body.
+   *
+   * @param prefix the readed record's prefix.
+   *
+   * @return the decoded record, which is valid until the next call.
+   */
+  Bytes decode (Bytes record, Bytes prefix) {
+    return decode(record, prefix, output);
+  }
+
+  /**
+   * Decodes the record into the specified buffer.
+   *
+   * @param record the readed record's body.
+   *
+   * @param prefix the readed record's prefix.
+   *
+   * @param destination the buffer for the decompressed record.
+   *
+   * @return the record itself, if it is not compressed, or the destination buffer.
+   */
+  Bytes decode (Bytes record, Bytes prefix, Bytes destination) {
+    if (enabled == false) {
+      return record;
+    }
+    val id = prefix.getByte(prefix.writerIndex() - 1);
+    if (id == STORED_ID) {
+      return record;
+    }
+    destination.reset();
+    CompressionCodecs.get(id, preferred).decompress(record, destination);
+    return destination;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.appulse.utils.Bytes;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The built-in codec, which compresses the records with the raw deflate format.
+ * The deflaters and inflaters are reused per thread.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class DeflateCodec implements CompressionCodec {
+
+  /**
+   * The codec's identifier.
+   */
+  public static final byte ID = 1;
+
+  private static final int CHUNK_BYTES = 8192;
+
+  /**
+   * The compression level, from 0 to 9, or -1 for the default one.
+   *
+   * @return the compression level.
+   */
+  @Getter
+  int level;
+
+  ThreadLocal<Deflater> deflaters;
+
+  ThreadLocal<Inflater> inflaters;
+
+  ThreadLocal<byte[]> chunks;
+
+  /**
+   * Constructs a new {@code DeflateCodec} instance with the default compression level.
+   */
+  public DeflateCodec () {
+    this(Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Constructs a new {@code DeflateCodec} instance.
+   *
+   * @param level the compression level, from 0 to 9, or -1 for the default one.
+   */
+  public DeflateCodec (int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid deflate compression level " + level);
+    }
+    this.level = level;
+    deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+    chunks = ThreadLocal.withInitial(() -> new byte[CHUNK_BYTES]);
+  }
+
+  @Override
+  public byte getId () {
+    return ID;
+  }
+
+  @Override
+  public void compress (Bytes source, Bytes destination) {
+    val deflater = deflaters.get();
+    val chunk = chunks.get();
+
+    deflater.reset();
+    deflater.setInput(source.array(), source.readerIndex(), source.readableBytes());
+    deflater.finish();
+    while (deflater.finished() == false) {
+      val length = deflater.deflate(chunk, 0, chunk.length);
+      destination.writeNB(chunk, 0, length);
+    }
+    source.readerIndex(source.writerIndex());
+  }
+
+  @Override
+  @SneakyThrows
+  public void decompress (Bytes source, Bytes destination) {
+    val inflater = inflaters.get();
+    val chunk = chunks.get();
+
+    inflater.reset();
+    inflater.setInput(source.array(), source.readerIndex(), source.readableBytes());
+    while (inflater.finished() == false) {
+      val length = inflater.inflate(chunk, 0, chunk.length);
+      if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+        throw new DataFormatException("Truncated deflate stream");
+      }
+      destination.writeNB(chunk, 0, length);
+    }
+    source.readerIndex(source.writerIndex());
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.val;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The process-wide pool of the direct block buffers.
+ * <p>
+ * The direct buffers are expensive to allocate and their memory is freed only by GC,
+ * so the released buffers are kept for reuse, up to the retained bytes limit.
+ * The pool is not owned by any log file, the retained buffers live as long as the JVM.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class DirectBufferPool {
+
+  private static final long MAX_RETAINED_BYTES = 64L * 1024 * 1024;
+
+  static final DirectBufferPool INSTANCE = new DirectBufferPool(MAX_RETAINED_BYTES);
+
+  ConcurrentMap<Integer, Queue<ByteBuffer>> buffers;
+
+  long maxRetainedBytes;
+
+  AtomicLong retainedBytes;
+
+  DirectBufferPool (long maxRetainedBytes) {
+    this.maxRetainedBytes = maxRetainedBytes;
+    buffers = new ConcurrentHashMap<>();
+    retainedBytes = new AtomicLong();
+  }
+
+  ByteBuffer acquire (int capacity) {
+    val queue = buffers.get(capacity);
+    val buffer = queue == null
+                 ? null
+                 : queue.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(capacity);
+    }
+    retainedBytes.addAndGet(-capacity);
+    buffer.clear();
+    return buffer;
+  }
+
+  void release (ByteBuffer buffer) {
+    val capacity = buffer.capacity();
+    if (retainedBytes.addAndGet(capacity) > maxRetainedBytes) {
+      retainedBytes.addAndGet(-capacity);
+      return;
+    }
+    buffers.computeIfAbsent(capacity, key -> new ConcurrentLinkedQueue<>())
+        .offer(buffer);
+  }
+
+  long retainedBytes () {
+    return retainedBytes.get();
+  }
+}
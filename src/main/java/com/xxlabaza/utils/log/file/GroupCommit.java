@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * Coalesces {@link BlockSink#force()} calls of concurrent writers.
+ * <p>
+ * The first waiting writer becomes a leader: it waits for more writers
+ * (up to the max batch size or the max wait time), forces the channel once
+ * and wakes up everybody, whose data was written before the force call.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class GroupCommit {
+
+  BlockSink sink;
+
+  long maxWaitNanos;
+
+  int maxBatchSize;
+
+  Lock lock;
+
+  Condition changed;
+
+  @NonFinal
+  long forcedPosition;
+
+  @NonFinal
+  int waiting;
+
+  @NonFinal
+  boolean forcing;
+
+  GroupCommit (BlockSink sink, LogFile.Config.GroupCommitConfig config) {
+    this.sink = sink;
+    maxWaitNanos = config.getMaxWait().toNanos();
+    maxBatchSize = config.getMaxBatchSize();
+    lock = new ReentrantLock();
+    changed = lock.newCondition();
+  }
+
+  /**
+   * Blocks until all the data before the specified position is forced to the storage device.
+   *
+   * @param position the sink's position, which must become durable.
+   */
+  @SneakyThrows
+  void sync (long position) {
+    lock.lock();
+    try {
+      waiting++;
+      if (waiting >= maxBatchSize) {
+        changed.signalAll();
+      }
+      while (forcedPosition < position) {
+        if (forcing == true) {
+          changed.await();
+        } else {
+          lead();
+        }
+      }
+    } finally {
+      waiting--;
+      lock.unlock();
+    }
+  }
+
+  private void lead () throws Exception {
+    forcing = true;
+    try {
+      long remaining = maxWaitNanos;
+      while (waiting < maxBatchSize && remaining > 0) {
+        remaining = changed.awaitNanos(remaining);
+      }
+
+      val target = sink.position();
+      lock.unlock();
+      try {
+        sink.force();
+      } finally {
+        lock.lock();
+      }
+      forcedPosition = Math.max(forcedPosition, target);
+    } finally {
+      forcing = false;
+      changed.signalAll();
+    }
+  }
+}
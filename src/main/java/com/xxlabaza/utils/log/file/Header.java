@@ -34,6 +34,31 @@ class Header {
 
   private static final int DEFAULT_VERSION = 1;
 
+  /**
+   * The lower bits of the version byte hold the format's version,
+   * the upper bits hold the format's optional features.
+   */
+  private static final int VERSION_MASK = 0x0F;
+
+  /**
+   * The records are prefixed with their append timestamps.
+   */
+  static final int TIMESTAMPS_FLAG = 0x10;
+
+  /**
+   * The records' bodies are compressed and prefixed with their codec's identifier.
+   */
+  static final int COMPRESSION_FLAG = 0x20;
+
+  /**
+   * The records' {@link ChecksumType checksum algorithm} code, zero is the original CRC32.
+   */
+  static final int CHECKSUM_MASK = 0xC0;
+
+  private static final int CHECKSUM_SHIFT = 6;
+
+  private static final int KNOWN_FLAGS = TIMESTAMPS_FLAG | COMPRESSION_FLAG | CHECKSUM_MASK;
+
   static final int BYTES =
       Byte.BYTES + // version
       Integer.BYTES; // block size in bytes
@@ -53,24 +78,88 @@ class Header {
     }
 
     val version = buffer.readByte();
-    if (version != DEFAULT_VERSION) {
+    val flags = version & 0xFF & ~VERSION_MASK;
+    if ((version & VERSION_MASK) != DEFAULT_VERSION || (flags & ~KNOWN_FLAGS) != 0) {
       throw new IllegalStateException("Unsupported log file version " + version);
     }
+    val checksumType = ChecksumType.from((flags & CHECKSUM_MASK) >>> CHECKSUM_SHIFT);
+    if (checksumType == null || checksumType.isSupported() == false) {
+      throw new IllegalStateException("Unsupported log file checksum, version " + version);
+    }
     return Header.builder()
         .version(version)
         .blockBytes(buffer.readInt())
         .build();
   }
 
+  /**
+   * Reads the header of a non-empty file or writes a new one, according to the configuration.
+   *
+   * @param channel the log file's channel.
+   *
+   * @param config the log file's configuration.
+   *
+   * @return the file's header.
+   */
+  @SneakyThrows
+  static Header readOrWrite (FileChannel channel, LogFile.Config config) {
+    if (channel.size() != 0) {
+      return read(channel);
+    }
+    val header = new Header(config);
+    header.write(channel);
+    return header;
+  }
+
   byte version;
 
   int blockBytes;
 
   Header (LogFile.Config config) {
-    version = DEFAULT_VERSION;
+    int flags = 0;
+    if (config.getTimestamps()) {
+      flags |= TIMESTAMPS_FLAG;
+    }
+    if (config.getCompression().isEnabled()) {
+      flags |= COMPRESSION_FLAG;
+    }
+    if (config.getChecksum().isSupported() == false) {
+      throw new IllegalArgumentException("Unsupported checksum " + config.getChecksum());
+    }
+    flags |= config.getChecksum().getCode() << CHECKSUM_SHIFT;
+    version = (byte) (DEFAULT_VERSION | flags);
     blockBytes = config.getBlockBufferSizeBytes();
   }
 
+  boolean hasTimestamps () {
+    return (version & TIMESTAMPS_FLAG) != 0;
+  }
+
+  boolean hasCompression () {
+    return (version & COMPRESSION_FLAG) != 0;
+  }
+
+  ChecksumType checksumType () {
+    return ChecksumType.from((version & CHECKSUM_MASK) >>> CHECKSUM_SHIFT);
+  }
+
+  /**
+   * Returns the size of the records' prefix, which holds the timestamp and the codec's identifier,
+   * according to the file's features.
+   *
+   * @return the records' prefix size, in bytes.
+   */
+  int prefixBytes () {
+    int result = 0;
+    if (hasTimestamps()) {
+      result += Record.TIMESTAMP_BYTES;
+    }
+    if (hasCompression()) {
+      result += Byte.BYTES;
+    }
+    return result;
+  }
+
   @SneakyThrows
   void write (FileChannel channel) {
     val buffer = Bytes.allocate(BYTES)
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A thread-safe histogram of non-negative values with log-linear buckets,
+ * in the manner of HdrHistogram. Each power of two range is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so the values are kept with 12.5% precision.
+ * <p>
+ * The recording does not allocate and does not lock.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  static int bucketIndex (long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    val shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    val subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketUpperBound (int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    val shift = index / SUB_BUCKETS - 1;
+    val subBucket = index % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+
+  AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  LongAdder count = new LongAdder();
+
+  LongAdder total = new LongAdder();
+
+  AtomicLong max = new AtomicLong();
+
+  /**
+   * Records the value, the negative values are recorded as zeros.
+   *
+   * @param value the recorded value.
+   */
+  public void record (long value) {
+    val normalized = Math.max(0, value);
+    counts.incrementAndGet(bucketIndex(normalized));
+    count.increment();
+    total.add(normalized);
+
+    long current = max.get();
+    while (normalized > current && max.compareAndSet(current, normalized) == false) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of the recorded values.
+   *
+   * @return the values count.
+   */
+  public long getCount () {
+    return count.sum();
+  }
+
+  /**
+   * Returns the maximum recorded value.
+   *
+   * @return the maximum value or {@code 0}, if there are no values.
+   */
+  public long getMax () {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return the mean value or {@code 0}, if there are no values.
+   */
+  public double getMean () {
+    val values = count.sum();
+    return values == 0
+           ? 0
+           : (double) total.sum() / values;
+  }
+
+  /**
+   * Returns the value, which is greater than or equal to the specified percentage of the recorded values.
+   * The result is the highest value of its bucket, but not greater than the maximum recorded value.
+   *
+   * @param percentile the percentile, from 0 to 100.
+   *
+   * @return the percentile's value or {@code 0}, if there are no values.
+   */
+  public long getValueAtPercentile (double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Invalid percentile " + percentile);
+    }
+    long values = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      values += counts.get(index);
+    }
+    if (values == 0) {
+      return 0;
+    }
+
+    val target = Math.max(1, (long) Math.ceil(percentile / 100 * values));
+    long seen = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      seen += counts.get(index);
+      if (seen >= target) {
+        return Math.min(bucketUpperBound(index), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Removes all the recorded values.
+   */
+  public void reset () {
+    for (int index = 0; index < BUCKETS; index++) {
+      counts.set(index, 0);
+    }
+    count.reset();
+    total.reset();
+    max.set(0);
+  }
+}
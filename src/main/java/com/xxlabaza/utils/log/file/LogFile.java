@@ -18,12 +18,23 @@ package com.xxlabaza.utils.log.file;
 
 import static com.xxlabaza.utils.log.file.CorruptionHandler.PRINT_STACK_TRACE_AND_CONTINUE;
 import static io.appulse.utils.SizeUnit.KILOBYTES;
+import static io.appulse.utils.SizeUnit.MEGABYTES;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static lombok.AccessLevel.PRIVATE;
 
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.xxlabaza.utils.log.file.exception.FileReadException;
 
@@ -49,10 +60,19 @@ import lombok.val;
 public final class LogFile implements AutoCloseable {
 
   Config config;
-  AtomicInteger modificationCount;
   BytesPool pool;
   @Getter(value = PRIVATE, lazy = true)
+  Long recoveredSize = recoverTail();
+  @Getter(value = PRIVATE, lazy = true)
+  SequenceIndex sequenceIndex = createSequenceIndex();
+  @Getter(value = PRIVATE, lazy = true)
+  TimeIndex timeIndex = createTimeIndex();
+  @Getter(value = PRIVATE, lazy = true)
   Appender appender = createAppender();
+  @Getter(value = PRIVATE, lazy = true)
+  AsyncAppender asyncAppender = createAsyncAppender();
+  @Getter(value = PRIVATE, lazy = true)
+  RandomReader randomReader = createRandomReader();
 
   /**
    * Constructs a new {@code LogFile} instance.
@@ -71,7 +91,6 @@ public final class LogFile implements AutoCloseable {
   LogFile (Config config, BytesPool pool) {
     this.config = config;
     this.pool = pool;
-    modificationCount = new AtomicInteger(0);
   }
 
   /**
@@ -95,12 +114,77 @@ public final class LogFile implements AutoCloseable {
 
   /**
    * Appends data to the file.
+   * <p>
+   * The method is thread-safe. In case of enabled {@link Config#getGroupCommit() group commit},
+   * concurrent callers share a single force call to the storage device.
    *
    * @param buffer the bytes, which need to append to the file.
+   *
+   * @return the appended record's address, which can be used for {@link #read(long) reading} it back.
+   */
+  public long append (@NonNull Bytes buffer) {
+    return getAppender().append(buffer);
+  }
+
+  /**
+   * Appends a batch of records to the file.
+   * <p>
+   * The records are packed into the block buffers and written with a single
+   * gathering write, followed by at most one force call to the storage device.
+   *
+   * @param buffers the records, which need to append to the file.
+   *
+   * @return the starting positions of the appended records, in the same order as the records.
    */
-  public void append (@NonNull Bytes buffer) {
-    modificationCount.incrementAndGet();
-    getAppender().append(buffer);
+  public long[] appendAll (@NonNull Bytes... buffers) {
+    return appendAll(Arrays.asList(buffers));
+  }
+
+  /**
+   * Appends a batch of records to the file.
+   * <p>
+   * The records are packed into the block buffers and written with a single
+   * gathering write, followed by at most one force call to the storage device.
+   *
+   * @param buffers the records, which need to append to the file.
+   *
+   * @return the starting positions of the appended records, in the same order as the records.
+   */
+  public long[] appendAll (@NonNull Collection<Bytes> buffers) {
+    return getAppender().appendAll(buffers);
+  }
+
+  /**
+   * Appends data to the file asynchronously.
+   * <p>
+   * The record is put into the {@link Config#getAsync() asynchronous appender's} ring buffer
+   * and written by a dedicated writer thread. The buffer must not be modified until the returned
+   * future is completed.
+   *
+   * @param buffer the bytes, which need to append to the file.
+   *
+   * @return the future, which is completed with the record's starting position, when the record
+   *         is written (and forced, if {@link Config#getForceFlush() forceFlush} is enabled).
+   */
+  public CompletableFuture<Long> appendAsync (@NonNull Bytes buffer) {
+    return getAsyncAppender().append(buffer);
+  }
+
+  /**
+   * Reads a single record by its address.
+   * <p>
+   * Only the blocks, which hold the record, are read and their checksums are verified.
+   *
+   * @param address the record's address, returned by one of the append methods.
+   *
+   * @return the record's bytes.
+   *
+   * @throws FileReadException if there is no record at the address.
+   *
+   * @throws com.xxlabaza.utils.log.file.exception.RecordCorruptedException if the record is corrupted.
+   */
+  public Bytes read (long address) {
+    return getRandomReader().read(address);
   }
 
   /**
@@ -114,6 +198,9 @@ public final class LogFile implements AutoCloseable {
 
   /**
    * Reads all records from the file's beginning.
+   * <p>
+   * The reading is bounded by a snapshot of the file: it sees the records, which are completely
+   * appended before the call, and it is neither blocked nor interrupted by the concurrent appends.
    *
    * @param consumer the client's logic for processing the readed data.
    *
@@ -133,15 +220,296 @@ public final class LogFile implements AutoCloseable {
     }
   }
 
+  /**
+   * Reads all records of the existing file, like the {@link #load(RecordConsumer, CorruptionHandler) load},
+   * but the file is opened in the read-only mode, so it is neither created nor initialized with a header.
+   * The missing file is skipped.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   */
+  void loadExisting (RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    val builder = Reader.builder()
+        .logFile(this)
+        .config(config)
+        .pool(pool)
+        .readOnly(true);
+
+    try (val reader = builder.build()) {
+      reader.read(consumer, corruptionHandler);
+    } catch (Exception ex) {
+      if (Files.notExists(path())) {
+        return;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads a page of records, starting from the record with the specified sequence number.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param fromSequence the first record's sequence number, starting from zero.
+   *
+   * @param limit the maximum number of records to read.
+   */
+  public void load (RecordConsumer consumer, long fromSequence, long limit) {
+    load(consumer, fromSequence, limit, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Reads a page of records, starting from the record with the specified sequence number.
+   * <p>
+   * With enabled {@link Config#getSequenceIndex() sequence index}, the reading starts from
+   * the nearest indexed record, so its cost is proportional to the page size and the index interval,
+   * not to the file size. Otherwise, the records are counted from the file's beginning.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param fromSequence the first record's sequence number, starting from zero.
+   *
+   * @param limit the maximum number of records to read.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @throws FileReadException in case of any read errors, except the corruptions -
+   *                           they process with the specified handler
+   */
+  public void load (@NonNull RecordConsumer consumer, long fromSequence, long limit,
+                    @NonNull CorruptionHandler corruptionHandler) {
+    if (fromSequence < 0 || limit < 0) {
+      throw new IllegalArgumentException("sequence and limit must not be negative");
+    }
+    if (limit == 0) {
+      return;
+    }
+
+    long address = Header.BYTES;
+    long sequence = 0;
+    val index = getSequenceIndex();
+    if (index != null) {
+      val entry = index.floorEntry(fromSequence);
+      if (entry >= 0) {
+        address = index.address(entry);
+        sequence = index.sequence(entry);
+      }
+    }
+
+    val builder = Reader.builder()
+        .logFile(this)
+        .config(config)
+        .pool(pool);
+
+    try (val reader = builder.build()) {
+      reader.seek(address);
+      reader.read(consumer, corruptionHandler, fromSequence - sequence, limit);
+    }
+  }
+
+  /**
+   * Reads the records, which were appended in the specified time range.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param from the range's start, inclusive.
+   *
+   * @param to the range's end, exclusive.
+   */
+  public void load (RecordConsumer consumer, Instant from, Instant to) {
+    load(consumer, from, to, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Reads the records, which were appended in the specified time range.
+   * <p>
+   * The file must be created with enabled {@link Config#getTimestamps() timestamps}.
+   * The reading starts from the block, found in the file's time index, and stops
+   * at the first record, which is appended after the range.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param from the range's start, inclusive.
+   *
+   * @param to the range's end, exclusive.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @throws IllegalStateException if the file has no records' timestamps.
+   *
+   * @throws FileReadException in case of any read errors, except the corruptions -
+   *                           they process with the specified handler
+   */
+  public void load (@NonNull RecordConsumer consumer, @NonNull Instant from, @NonNull Instant to,
+                    @NonNull CorruptionHandler corruptionHandler) {
+    val index = getTimeIndex();
+    if (index == null) {
+      throw new IllegalStateException("The log file " + path() + " has no records' timestamps");
+    }
+
+    val builder = Reader.builder()
+        .logFile(this)
+        .config(config)
+        .pool(pool);
+
+    try (val reader = builder.build()) {
+      reader.seek(index.floorAddress(from.toEpochMilli()));
+      reader.read(consumer, corruptionHandler, from, to);
+    }
+  }
+
+  /**
+   * Reads all records from the file's beginning without copying the single-block records.
+   *
+   * @param consumer the client's logic for processing the readed data, the passed views
+   *                 are valid only during the callback.
+   */
+  public void loadViews (RecordViewConsumer consumer) {
+    loadViews(consumer, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Reads all records from the file's beginning without copying the single-block records.
+   * <p>
+   * The records, which are placed entirely in a single block, are passed as a read-only view
+   * of the block buffer. The records, which are split between several blocks, are reassembled
+   * into a separate buffer first.
+   *
+   * @param consumer the client's logic for processing the readed data, the passed views
+   *                 are valid only during the callback.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @throws FileReadException in case of any read errors, except the corruptions -
+   *                           they process with the specified handler
+   */
+  public void loadViews (@NonNull RecordViewConsumer consumer, @NonNull CorruptionHandler corruptionHandler) {
+    val builder = Reader.builder()
+        .logFile(this)
+        .config(config)
+        .pool(pool);
+
+    try (val reader = builder.build()) {
+      reader.readViews(consumer, corruptionHandler);
+    }
+  }
+
+  /**
+   * Reads the records from the file's end to its beginning.
+   *
+   * @param consumer the client's logic for processing the readed data,
+   *                 it receives the record's address as the current position.
+   */
+  public void loadReverse (RecordConsumer consumer) {
+    loadReverse(consumer, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Reads the records from the file's end to its beginning.
+   * <p>
+   * The reading cost is proportional to the number of the consumed records, not to the file's size,
+   * so stopping the consumer after the last N records reads only the file's tail. The reading is bounded
+   * by a snapshot of the file, like the {@link #load(RecordConsumer, CorruptionHandler) load} methods.
+   *
+   * @param consumer the client's logic for processing the readed data,
+   *                 it receives the record's address as the current position.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @throws FileReadException in case of any read errors, except the corruptions -
+   *                           they process with the specified handler
+   */
+  public void loadReverse (@NonNull RecordConsumer consumer, @NonNull CorruptionHandler corruptionHandler) {
+    try (val reader = new ReverseReader(this, pool)) {
+      reader.read(consumer, corruptionHandler);
+    }
+  }
+
+  /**
+   * Returns a parallel stream of all the file's records.
+   *
+   * @return the records' stream, which must be closed after use.
+   */
+  public Stream<Bytes> records () {
+    return records(PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Returns a parallel stream of all the file's records.
+   * <p>
+   * The stream's spliterator splits the file on the block boundaries, so the records are decoded
+   * and their checksums are verified by the fork/join pool's threads. The stream is ordered and
+   * bounded by a snapshot of the file, like the {@link #load(RecordConsumer, CorruptionHandler) load}
+   * methods. Use {@link Stream#sequential()} for a single-threaded pass.
+   *
+   * @param corruptionHandler the corrupted data handler, it may be invoked from several threads.
+   *
+   * @return the records' stream, which must be closed after use.
+   */
+  public Stream<Bytes> records (@NonNull CorruptionHandler corruptionHandler) {
+    val spliterator = RecordSpliterator.open(this, pool, corruptionHandler);
+    return StreamSupport.stream(spliterator, true)
+        .onClose(spliterator::close);
+  }
+
+  /**
+   * Follows the file: reads all records from the file's beginning, then waits for the new
+   * appends and delivers them incrementally.
+   *
+   * @param consumer the client's logic for processing the readed data, it is invoked
+   *                 from the follower's thread.
+   *
+   * @return the follower, which must be closed after use.
+   */
+  public Tailer follow (RecordConsumer consumer) {
+    return follow(consumer, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Follows the file: reads all records from the file's beginning, then waits for the new
+   * appends and delivers them incrementally.
+   * <p>
+   * Unlike the {@link #load(RecordConsumer, CorruptionHandler) load} methods,
+   * the follower tolerates the concurrent appends.
+   *
+   * @param consumer the client's logic for processing the readed data, it is invoked
+   *                 from the follower's thread.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @return the follower, which must be closed after use.
+   */
+  public Tailer follow (@NonNull RecordConsumer consumer, @NonNull CorruptionHandler corruptionHandler) {
+    val reader = Reader.builder()
+        .logFile(this)
+        .config(config)
+        .pool(pool)
+        .build();
+
+    return new Tailer(this, reader, consumer, corruptionHandler);
+  }
+
   /**
    * Closes the file.
    */
   @Override
   public void close () {
-    if (appender.get() == null) {
-      return;
+    if (asyncAppender.get() != null) {
+      getAsyncAppender().close();
+    }
+    if (randomReader.get() != null) {
+      getRandomReader().close();
+    }
+    if (appender.get() != null) {
+      getAppender().close();
+    }
+    if (sequenceIndex.get() != null && getSequenceIndex() != null) {
+      getSequenceIndex().close();
+    }
+    if (timeIndex.get() != null && getTimeIndex() != null) {
+      getTimeIndex().close();
     }
-    getAppender().close();
   }
 
   /**
@@ -154,12 +522,66 @@ public final class LogFile implements AutoCloseable {
     getAppender().reset();
   }
 
-  int getModificationCount () {
-    return modificationCount.get();
+  Config getConfig () {
+    return config;
+  }
+
+  /**
+   * Returns the position, up to which the file's records are completely written.
+   *
+   * @return the in-process appender's committed position or the file's size.
+   */
+  long committedSize () {
+    val opened = getOpenedAppender();
+    return opened == null
+           ? size()
+           : opened.committedPosition();
+  }
+
+  Appender getOpenedAppender () {
+    return appender.get() == null
+           ? null
+           : getAppender();
+  }
+
+  /**
+   * Truncates the file's torn tail, once and before the appender or the indices read the file,
+   * because the indices catch up with the file's records on open.
+   *
+   * @return the file's size after the recovery.
+   */
+  @SneakyThrows
+  private Long recoverTail () {
+    try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
+      val header = Header.readOrWrite(channel, config);
+      return TailRecovery.recover(channel, header, config);
+    }
+  }
+
+  private SequenceIndex createSequenceIndex () {
+    if (config.getSequenceIndex().isEnabled() == false) {
+      return null;
+    }
+    getRecoveredSize();
+    return new SequenceIndex(this, config, pool);
+  }
+
+  private TimeIndex createTimeIndex () {
+    getRecoveredSize();
+    return TimeIndex.open(this, config, pool);
   }
 
   private Appender createAppender () {
-    return new Appender(config, pool);
+    getRecoveredSize();
+    return new Appender(config, pool, getSequenceIndex(), getTimeIndex());
+  }
+
+  private AsyncAppender createAsyncAppender () {
+    return new AsyncAppender(getAppender(), config);
+  }
+
+  private RandomReader createRandomReader () {
+    return new RandomReader(config, pool);
   }
 
   /**
@@ -203,5 +625,376 @@ public final class LogFile implements AutoCloseable {
     @NonNull
     @Builder.Default
     Boolean forceFlush = true;
+
+    /**
+     * Prefixes the new file's records with their append timestamps and maintains the file's
+     * time index, which allows {@link LogFile#load(RecordConsumer, Instant, Instant) time-range reads}.
+     * The setting is used only for creating a new file, an existing file keeps its format.
+     * The default value is <b>false</b>.
+     *
+     * @return the current <b>timestamps</b> value.
+     */
+    @NonNull
+    @Builder.Default
+    Boolean timestamps = false;
+
+    /**
+     * Keeps the blocks in the direct (off-heap) buffers, which are passed to the file's channel
+     * without the intermediate copying and are not scanned by GC.
+     * <p>
+     * The direct buffers are pooled process-wide, instead of the log file's {@link BytesPool}:
+     * the pool is shared by all the log files and managers and is not closed with them.
+     * The released buffers are retained for reuse, up to 64 MiB in total, for the life of the JVM,
+     * so the off-heap memory of the pool is not freed after the log files are closed.
+     * The default value is <b>false</b>.
+     *
+     * @return the current <b>directBuffers</b> value.
+     */
+    @NonNull
+    @Builder.Default
+    Boolean directBuffers = false;
+
+    /**
+     * The way the file's blocks are read. The default value is <b>CHANNEL</b>.
+     *
+     * @return the read mode.
+     */
+    @NonNull
+    @Builder.Default
+    ReadMode readMode = ReadMode.CHANNEL;
+
+    /**
+     * The way the file's blocks are written. The default value is <b>CHANNEL</b>.
+     *
+     * @return the write mode.
+     */
+    @NonNull
+    @Builder.Default
+    WriteMode writeMode = WriteMode.CHANNEL;
+
+    /**
+     * The size of a mapped window, in bytes, for the {@link ReadMode#MEMORY_MAPPED} read mode
+     * and the {@link WriteMode#MEMORY_MAPPED} write mode. It is rounded down to the block size
+     * multiple. The default value is <b>64 megabytes</b>.
+     *
+     * @return the mapped window size, in bytes.
+     */
+    @NonNull
+    @Builder.Default
+    Integer mappedWindowBytes = (int) MEGABYTES.toBytes(64);
+
+    /**
+     * The interval, with which a {@link LogFile#follow(RecordConsumer) follower} checks the file
+     * for the appends, made by other instances or processes. The default value is <b>100 milliseconds</b>.
+     *
+     * @return the follower's poll interval.
+     */
+    @NonNull
+    @Builder.Default
+    Duration followPollInterval = Duration.ofMillis(100);
+
+    /**
+     * The group commit settings, which are used only with enabled {@link #getForceFlush() forceFlush}.
+     * The group commit is disabled by default.
+     *
+     * @return the group commit settings.
+     */
+    @NonNull
+    @Builder.Default
+    GroupCommitConfig groupCommit = GroupCommitConfig.DEFAULT;
+
+    /**
+     * The asynchronous appender settings, which are used by {@link LogFile#appendAsync(Bytes)}.
+     *
+     * @return the asynchronous appender settings.
+     */
+    @NonNull
+    @Builder.Default
+    AsyncConfig async = AsyncConfig.DEFAULT;
+
+    /**
+     * The read-ahead settings of the {@link ReadMode#PIPELINED pipelined} read mode.
+     *
+     * @return the read-ahead settings.
+     */
+    @NonNull
+    @Builder.Default
+    PrefetchConfig prefetch = PrefetchConfig.DEFAULT;
+
+    /**
+     * The sparse sequence index settings, which are used by
+     * {@link LogFile#load(RecordConsumer, long, long) paginated reads}.
+     * The sequence index is disabled by default.
+     *
+     * @return the sequence index settings.
+     */
+    @NonNull
+    @Builder.Default
+    SequenceIndexConfig sequenceIndex = SequenceIndexConfig.DEFAULT;
+
+    /**
+     * The records' compression settings, which are applied to new files only -
+     * an existing file keeps the compression, recorded in its header.
+     * The compression is disabled by default.
+     *
+     * @return the compression settings.
+     */
+    @NonNull
+    @Builder.Default
+    CompressionConfig compression = CompressionConfig.DEFAULT;
+
+    /**
+     * The records' checksum algorithm, which is applied to new files only -
+     * an existing file keeps the algorithm, recorded in its header.
+     * The default value is {@link ChecksumType#CRC32}.
+     *
+     * @return the records' checksum algorithm.
+     */
+    @NonNull
+    @Builder.Default
+    ChecksumType checksum = ChecksumType.CRC32;
+
+    /**
+     * The listener of the log file's internal events, such as appends, writes, forces and block loads.
+     * The default value is {@link LogFileMetrics#NOOP}.
+     *
+     * @return the log file's metrics listener.
+     */
+    @NonNull
+    @Builder.Default
+    LogFileMetrics metrics = LogFileMetrics.NOOP;
+
+    /**
+     * The settings of the file's tail recovery, which truncates a torn record,
+     * left by a crash, when the file is opened for appending.
+     * The recovery is enabled and the checkpoint is disabled by default.
+     *
+     * @return the tail recovery settings.
+     */
+    @NonNull
+    @Builder.Default
+    RecoveryConfig recovery = RecoveryConfig.DEFAULT;
+
+    /**
+     * A group commit configuration object.
+     * <p>
+     * With enabled group commit, concurrent appenders wait together and share a single
+     * force call to the storage device, instead of forcing the file on each append.
+     */
+    @With
+    @Value
+    @Builder
+    public static class GroupCommitConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final GroupCommitConfig DEFAULT = GroupCommitConfig.builder().build();
+
+      /**
+       * Enables or disables the group commit. The default value is <b>false</b>.
+       *
+       * @return the current <b>enabled</b> value.
+       */
+      @Builder.Default
+      boolean enabled = false;
+
+      /**
+       * The maximum time, which a group leader waits for other appenders before forcing
+       * the file. The default value is <b>1 millisecond</b>.
+       *
+       * @return the maximum wait time.
+       */
+      @NonNull
+      @Builder.Default
+      Duration maxWait = Duration.ofMillis(1);
+
+      /**
+       * The number of waiting appenders, which forces the file immediately,
+       * without waiting for the {@link #getMaxWait() maxWait} time. The default value is <b>64</b>.
+       *
+       * @return the maximum batch size.
+       */
+      @Builder.Default
+      int maxBatchSize = 64;
+    }
+
+    /**
+     * An asynchronous appender configuration object.
+     */
+    @With
+    @Value
+    @Builder
+    public static class AsyncConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final AsyncConfig DEFAULT = AsyncConfig.builder().build();
+
+      /**
+       * The capacity of the ring buffer, in records. The default value is <b>1024</b>.
+       *
+       * @return the ring buffer size.
+       */
+      @Builder.Default
+      int ringSize = 1024;
+
+      /**
+       * The maximum number of records, which the writer thread appends at once.
+       * The default value is <b>256</b>.
+       *
+       * @return the maximum batch size.
+       */
+      @Builder.Default
+      int maxBatchSize = 256;
+
+      /**
+       * The behaviour, when the ring buffer is full. The default value is <b>BLOCK</b>.
+       *
+       * @return the backpressure strategy.
+       */
+      @NonNull
+      @Builder.Default
+      Backpressure backpressure = Backpressure.BLOCK;
+    }
+
+    /**
+     * A read-ahead configuration object of the {@link ReadMode#PIPELINED pipelined} read mode.
+     * <p>
+     * The prefetch thread reads the file with {@link #getReadAheadBytes() readAheadBytes} reads
+     * into a ring of the {@link #getBuffers() buffers}, so it stays at most that many reads
+     * ahead of the reading thread.
+     */
+    @With
+    @Value
+    @Builder
+    public static class PrefetchConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final PrefetchConfig DEFAULT = PrefetchConfig.builder().build();
+
+      /**
+       * The size of a single read-ahead read, in bytes. It is rounded down to the block size
+       * multiple, but not less than one block. The default value is <b>1 megabyte</b>.
+       *
+       * @return the read-ahead size, in bytes.
+       */
+      @Builder.Default
+      int readAheadBytes = (int) MEGABYTES.toBytes(1);
+
+      /**
+       * The number of the read-ahead buffers, at least two. The default value is <b>4</b>.
+       *
+       * @return the read-ahead buffers count.
+       */
+      @Builder.Default
+      int buffers = 4;
+    }
+
+    /**
+     * A sparse sequence index configuration object.
+     * <p>
+     * With enabled sequence index, the address of every {@link #getInterval() interval}-th record
+     * is kept in a sidecar file, named as the log file with the <b>.idx</b> suffix.
+     */
+    @With
+    @Value
+    @Builder
+    public static class SequenceIndexConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final SequenceIndexConfig DEFAULT = SequenceIndexConfig.builder().build();
+
+      /**
+       * Enables or disables the sequence index. The default value is <b>false</b>.
+       *
+       * @return the current <b>enabled</b> value.
+       */
+      @Builder.Default
+      boolean enabled = false;
+
+      /**
+       * The number of records between two index entries. The default value is <b>1024</b>.
+       *
+       * @return the index interval, in records.
+       */
+      @Builder.Default
+      int interval = 1024;
+    }
+
+    /**
+     * A tail recovery configuration object.
+     * <p>
+     * On open for appending, the file is validated from its last block backwards, up to the last
+     * complete record, and the torn bytes after it are truncated. With enabled
+     * {@link #isCheckpoint() checkpoint}, a cleanly closed file is not validated at all.
+     */
+    @With
+    @Value
+    @Builder
+    public static class RecoveryConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final RecoveryConfig DEFAULT = RecoveryConfig.builder().build();
+
+      /**
+       * Enables or disables the tail recovery. The default value is <b>true</b>.
+       *
+       * @return the current <b>enabled</b> value.
+       */
+      @Builder.Default
+      boolean enabled = true;
+
+      /**
+       * Enables or disables the checkpoint sidecar, named as the log file with the <b>.ckpt</b> suffix,
+       * which is written with the forced file's size on close. The default value is <b>false</b>.
+       *
+       * @return the current <b>checkpoint</b> value.
+       */
+      @Builder.Default
+      boolean checkpoint = false;
+    }
+
+    /**
+     * A records' compression configuration object.
+     * <p>
+     * With enabled compression, each record's body is compressed by the {@link #getCodec() codec}
+     * and prefixed with the codec's identifier. The records, which do not shrink, are stored as is.
+     */
+    @With
+    @Value
+    @Builder
+    public static class CompressionConfig {
+
+      /**
+       * The configuration with default settings.
+       */
+      public static final CompressionConfig DEFAULT = CompressionConfig.builder().build();
+
+      /**
+       * Enables or disables the records' compression. The default value is <b>false</b>.
+       *
+       * @return the current <b>enabled</b> value.
+       */
+      @Builder.Default
+      boolean enabled = false;
+
+      /**
+       * The codec for compressing the new records. The default value is
+       * {@link DeflateCodec} with the default compression level.
+       *
+       * @return the records' codec.
+       */
+      @NonNull
+      @Builder.Default
+      CompressionCodec codec = new DeflateCodec();
+    }
   }
 }
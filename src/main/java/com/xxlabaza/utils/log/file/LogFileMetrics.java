@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+/**
+ * The listener of the log files' internal events, for wiring them into a telemetry system.
+ * <p>
+ * The methods are invoked on the appending and the reading threads, so an implementation must be
+ * thread-safe and cheap - it should not block or allocate. All the methods do nothing by default.
+ *
+ * @see RecordingLogFileMetrics
+ */
+public interface LogFileMetrics {
+
+  /**
+   * The listener, which ignores all the events.
+   */
+  LogFileMetrics NOOP = new LogFileMetrics() {
+  };
+
+  /**
+   * Invoked after the records are appended, including the force and the group commit waiting.
+   *
+   * @param records the number of the appended records.
+   *
+   * @param bytes the appended records' bytes, before the compression.
+   *
+   * @param nanos the append's duration, in nanoseconds.
+   */
+  default void onAppend (int records, long bytes, long nanos) {
+  }
+
+  /**
+   * Invoked after the blocks' bytes are written to the file.
+   *
+   * @param bytes the number of the written bytes.
+   *
+   * @param nanos the write's duration, in nanoseconds.
+   */
+  default void onWrite (long bytes, long nanos) {
+  }
+
+  /**
+   * Invoked after the file is forced to the storage device.
+   *
+   * @param nanos the force's duration, in nanoseconds.
+   */
+  default void onForce (long nanos) {
+  }
+
+  /**
+   * Invoked, when a block's tail, which is too small for a chunk's header, is padded with zeros.
+   *
+   * @param bytes the number of the padding bytes.
+   */
+  default void onPadding (int bytes) {
+  }
+
+  /**
+   * Invoked after a block is loaded from the file.
+   *
+   * @param bytes the number of the loaded bytes.
+   *
+   * @param nanos the load's duration, in nanoseconds.
+   */
+  default void onBlockLoad (int bytes, long nanos) {
+  }
+
+  /**
+   * Invoked after a record is decoded by a reader.
+   */
+  default void onDecode () {
+  }
+
+  /**
+   * Invoked, when a reader meets a corrupted record, before the {@link CorruptionHandler} call.
+   */
+  default void onCorruption () {
+  }
+
+  /**
+   * Invoked, when {@link LogFilesManager} finds an opened file in its cache.
+   */
+  default void onCacheHit () {
+  }
+
+  /**
+   * Invoked, when {@link LogFilesManager} opens a file, which is absent in its cache.
+   */
+  default void onCacheMiss () {
+  }
+
+  /**
+   * Invoked, when {@link LogFilesManager} evicts an opened file from its cache.
+   */
+  default void onCacheEviction () {
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The concurrent cache of the opened log files.
+ * <p>
+ * The eviction policy is a CLOCK (second chance) approximation of LRU: each hit marks
+ * an entry as referenced and the eviction sweep gives such entries one more round.
+ * The entries are reference-counted, so an evicted log file is closed only when
+ * the last in-flight operation releases it.
+ * <p>
+ * The sweep evicts an entry under the lock of its path, which is the same lock
+ * the clients use for working with the path.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class LogFilesCache implements AutoCloseable {
+
+  int maxSize;
+
+  Function<Path, LogFile> loader;
+
+  Function<Path, Lock> locks;
+
+  ConcurrentMap<Path, Entry> entries;
+
+  Queue<Entry> clock;
+
+  Lock evictionLock;
+
+  LongAdder hits;
+
+  LongAdder misses;
+
+  LongAdder evictions;
+
+  LogFileMetrics metrics;
+
+  LogFilesCache (int maxSize, Function<Path, LogFile> loader, Function<Path, Lock> locks) {
+    this(maxSize, loader, locks, LogFileMetrics.NOOP);
+  }
+
+  LogFilesCache (int maxSize, Function<Path, LogFile> loader, Function<Path, Lock> locks, LogFileMetrics metrics) {
+    this.metrics = metrics;
+    this.maxSize = maxSize;
+    this.loader = loader;
+    this.locks = locks;
+    entries = new ConcurrentHashMap<>();
+    clock = new ConcurrentLinkedQueue<>();
+    evictionLock = new ReentrantLock();
+    hits = new LongAdder();
+    misses = new LongAdder();
+    evictions = new LongAdder();
+  }
+
+  @Override
+  public void close () {
+    for (val entry : new ArrayList<>(entries.values())) {
+      evict(entry);
+    }
+    clock.clear();
+  }
+
+  /**
+   * Returns the cached entry for the path, opening a new log file in case of miss.
+   * The returned entry must be {@link Entry#release() released} after use.
+   *
+   * @param path the log file's path.
+   *
+   * @return the retained cache entry.
+   */
+  Entry acquire (Path path) {
+    while (true) {
+      val entry = entries.get(path);
+      if (entry != null) {
+        if (entry.retain() == true) {
+          entry.referenced = true;
+          hits.increment();
+          metrics.onCacheHit();
+          return entry;
+        }
+        continue;
+      }
+
+      val created = new Entry(path, loader.apply(path));
+      created.retain();
+      if (entries.putIfAbsent(path, created) != null) {
+        created.getLogFile().close();
+        continue;
+      }
+      clock.add(created);
+      misses.increment();
+      metrics.onCacheMiss();
+      return created;
+    }
+  }
+
+  /**
+   * Evicts the entries, which exceed the cache's max size.
+   * <p>
+   * The method acquires the paths' locks, so it must not be invoked under any of them.
+   */
+  void evictExcess () {
+    if (entries.size() <= maxSize || evictionLock.tryLock() == false) {
+      return;
+    }
+    try {
+      while (entries.size() > maxSize) {
+        val entry = clock.poll();
+        if (entry == null) {
+          return;
+        }
+        if (entry.referenced == true && entries.get(entry.getPath()) == entry) {
+          entry.referenced = false;
+          clock.add(entry);
+          continue;
+        }
+        evict(entry);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  LogFilesManager.CacheStats stats () {
+    return new LogFilesManager.CacheStats(hits.sum(), misses.sum(), evictions.sum());
+  }
+
+  int size () {
+    return entries.size();
+  }
+
+  private void evict (Entry entry) {
+    val lock = locks.apply(entry.getPath());
+    lock.lock();
+    try {
+      if (entries.remove(entry.getPath(), entry) == true) {
+        evictions.increment();
+        metrics.onCacheEviction();
+        entry.evict();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @RequiredArgsConstructor(access = PRIVATE)
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  static final class Entry {
+
+    @Getter
+    Path path;
+
+    @Getter
+    LogFile logFile;
+
+    AtomicInteger references = new AtomicInteger();
+
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    @NonFinal
+    volatile boolean referenced;
+
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    @NonFinal
+    volatile boolean evicted;
+
+    /**
+     * Releases the entry, previously acquired from the cache. The evicted log file
+     * is closed by the last release.
+     */
+    void release () {
+      if (references.decrementAndGet() == 0 && evicted == true) {
+        tryClose();
+      }
+    }
+
+    boolean isClosed () {
+      return references.get() < 0;
+    }
+
+    private boolean retain () {
+      while (true) {
+        val current = references.get();
+        if (current < 0) {
+          return false;
+        }
+        if (references.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    private void evict () {
+      evicted = true;
+      tryClose();
+    }
+
+    private void tryClose () {
+      if (references.compareAndSet(0, -1)) {
+        logFile.close();
+      }
+    }
+  }
+}
@@ -21,8 +21,9 @@ import static lombok.AccessLevel.PRIVATE;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Map;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.appulse.utils.Bytes;
 import io.appulse.utils.BytesPool;
@@ -35,11 +36,13 @@ import lombok.experimental.FieldDefaults;
 import lombok.val;
 
 @FieldDefaults(level = PRIVATE, makeFinal = true)
-public final class LogFilesManager {
+public final class LogFilesManager implements AutoCloseable {
 
   LogFilesManager.Config config;
 
-  Map<Path, LogFile> logFiles;
+  Lock[] locks;
+
+  LogFilesCache logFiles;
 
   Semaphore readPermits;
 
@@ -47,7 +50,16 @@ public final class LogFilesManager {
 
   public LogFilesManager (LogFilesManager.Config config) {
     this.config = config;
-    logFiles = new LruCache(config.getPermits().getWrite());
+    locks = new Lock[config.getLockStripes()];
+    for (int index = 0; index < locks.length; index++) {
+      locks[index] = new ReentrantLock();
+    }
+    logFiles = new LogFilesCache(
+        config.getPermits().getWrite(),
+        this::createLogFile,
+        this::lockFor,
+        config.getCommonConfig().getMetrics()
+    );
     readPermits = new Semaphore(config.getPermits().getRead());
     pool = BytesPool.builder()
         .initialBuffersCount(config.getPool().getInitialBuffersCount())
@@ -57,24 +69,85 @@ public final class LogFilesManager {
         .build();
   }
 
-  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
-  public synchronized void append (@NonNull Path path, @NonNull Bytes buffer) {
-    val logFile = logFiles.computeIfAbsent(path, this::createLogFile);
-    logFile.append(buffer);
+  /**
+   * Appends data to the file by the specified path.
+   * <p>
+   * The appends to the same path are serialized, but the appends to
+   * the different paths are performed in parallel.
+   *
+   * @param path the path to the file, relative to the manager's directory.
+   *
+   * @param buffer the bytes, which need to append to the file.
+   */
+  public void append (@NonNull Path path, @NonNull Bytes buffer) {
+    val lock = lockFor(path);
+    lock.lock();
+    try {
+      val entry = logFiles.acquire(path);
+      try {
+        entry.getLogFile().append(buffer);
+      } finally {
+        entry.release();
+      }
+    } finally {
+      lock.unlock();
+    }
+    logFiles.evictExcess();
   }
 
   public void load (Path path, RecordConsumer consumer) {
     load(path, consumer, PRINT_STACK_TRACE_AND_CONTINUE);
   }
 
+  /**
+   * Loads the records of the file by the specified path.
+   * <p>
+   * The file is read through the opened files cache, so the reading is bounded
+   * by the position, committed by the concurrent appends to the same path.
+   *
+   * @param path the path to the file, relative to the manager's directory.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   */
   @SneakyThrows
   public void load (@NonNull Path path, RecordConsumer consumer, CorruptionHandler corruptionHandler) {
     readPermits.acquire();
-    try (val logFile = createLogFile(path)) {
-      logFile.load(consumer, corruptionHandler);
+    try {
+      val entry = logFiles.acquire(path);
+      try {
+        entry.getLogFile().load(consumer, corruptionHandler);
+      } finally {
+        entry.release();
+      }
     } finally {
       readPermits.release();
     }
+    logFiles.evictExcess();
+  }
+
+  /**
+   * Returns the opened files cache statistics.
+   *
+   * @return the cache statistics snapshot.
+   */
+  public CacheStats getCacheStats () {
+    return logFiles.stats();
+  }
+
+  /**
+   * Closes all the opened files.
+   */
+  @Override
+  public void close () {
+    logFiles.close();
+    pool.close();
+  }
+
+  Lock lockFor (Path path) {
+    val index = Math.floorMod(path.hashCode(), locks.length);
+    return locks[index];
   }
 
   private LogFile createLogFile (Path path) {
@@ -85,6 +158,34 @@ public final class LogFilesManager {
     return new LogFile(logFileConfig, pool);
   }
 
+  /**
+   * The opened files cache statistics.
+   */
+  @Value
+  public static class CacheStats {
+
+    /**
+     * The number of appends and loads, which found an already opened file.
+     *
+     * @return the hits count.
+     */
+    long hits;
+
+    /**
+     * The number of appends and loads, which had to open a file.
+     *
+     * @return the misses count.
+     */
+    long misses;
+
+    /**
+     * The number of files, which were evicted from the cache.
+     *
+     * @return the evictions count.
+     */
+    long evictions;
+  }
+
   @With
   @Value
   @Builder
@@ -111,6 +212,14 @@ public final class LogFilesManager {
     @Builder.Default
     PoolConfig pool = PoolConfig.DEFAULT;
 
+    /**
+     * The number of lock stripes, which serialize the appends to the same path.
+     * The appends to the paths from different stripes are performed in parallel.
+     * The default value is <b>64</b>.
+     */
+    @Builder.Default
+    int lockStripes = 64;
+
     @With
     @Value
     @Builder
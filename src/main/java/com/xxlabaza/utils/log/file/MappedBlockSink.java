@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The block sink, which preallocates and maps a window of the file ahead of
+ * the write position and copies the blocks straight into the mapped memory.
+ * <p>
+ * The windows are aligned to the file's blocks, the filled window is remapped
+ * to the next one. With the {@link LogFile.Config#getForceFlush() force flush},
+ * the windows, which were not forced yet, are kept until the next {@link #force()} call.
+ * Otherwise, only the current window is referenced, the retired ones are left to the
+ * page cache and are forced through the channel by the next {@link #force()} call.
+ * The file is truncated to its logical end on close.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class MappedBlockSink implements BlockSink {
+
+  FileChannel channel;
+
+  long windowBytes;
+
+  boolean forceFlush;
+
+  List<MappedByteBuffer> unforced;
+
+  @NonFinal
+  MappedByteBuffer window;
+
+  @NonFinal
+  long windowStart;
+
+  @NonFinal
+  boolean retiredUnforced;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  @NonFinal
+  volatile long position;
+
+  @SneakyThrows
+  MappedBlockSink (FileChannel channel, int windowBytes, int blockBytes, boolean forceFlush) {
+    this.channel = channel;
+    this.windowBytes = Math.max(1, windowBytes / blockBytes) * (long) blockBytes;
+    this.forceFlush = forceFlush;
+    unforced = new ArrayList<>();
+    position = channel.size();
+  }
+
+  @Override
+  public long position () {
+    return position;
+  }
+
+  @Override
+  public void write (ByteBuffer... buffers) {
+    for (val buffer : buffers) {
+      while (buffer.hasRemaining()) {
+        val mapped = windowFor(position);
+        mapped.position((int) (position - windowStart));
+
+        val length = Math.min(buffer.remaining(), mapped.remaining());
+        val limit = buffer.limit();
+        buffer.limit(buffer.position() + length);
+        mapped.put(buffer);
+        buffer.limit(limit);
+
+        position += length;
+      }
+    }
+  }
+
+  @Override
+  @SneakyThrows
+  public void force () {
+    List<MappedByteBuffer> windows;
+    boolean retired;
+    synchronized (unforced) {
+      windows = new ArrayList<>(unforced);
+      unforced.clear();
+      if (window != null) {
+        windows.add(window);
+      }
+      retired = retiredUnforced;
+      retiredUnforced = false;
+    }
+    for (val mapped : windows) {
+      mapped.force();
+    }
+    if (retired == true) {
+      channel.force(false);
+    }
+  }
+
+  int unforcedWindows () {
+    synchronized (unforced) {
+      return unforced.size();
+    }
+  }
+
+  @Override
+  @SneakyThrows
+  public void truncate (long size) {
+    synchronized (unforced) {
+      unforced.clear();
+      window = null;
+      retiredUnforced = false;
+    }
+    channel.truncate(size);
+    position = size;
+  }
+
+  @Override
+  @SneakyThrows
+  public void close () {
+    force();
+    synchronized (unforced) {
+      window = null;
+    }
+    channel.truncate(position);
+    channel.close();
+  }
+
+  @SneakyThrows
+  private MappedByteBuffer windowFor (long position) {
+    if (window != null && position >= windowStart && position < windowStart + window.capacity()) {
+      return window;
+    }
+
+    val start = position < Header.BYTES
+                ? 0
+                : Header.BYTES + (position - Header.BYTES) / windowBytes * windowBytes;
+    val mapped = channel.map(READ_WRITE, start, windowBytes);
+    synchronized (unforced) {
+      if (window != null && forceFlush == true) {
+        unforced.add(window);
+      } else if (window != null) {
+        retiredUnforced = true;
+      }
+      window = mapped;
+      windowStart = start;
+    }
+    return mapped;
+  }
+}
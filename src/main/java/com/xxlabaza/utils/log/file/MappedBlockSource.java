@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The block source, which maps a log file into memory with fixed-size windows.
+ * <p>
+ * Only one window is mapped at a time, so huge files do not exhaust the address space.
+ * The windows are aligned to the file's blocks, so a block never crosses a window's boundary.
+ * The reads are serialized, because they share the current window's position.
+ * The file's size is checked only on remapping, the reads within the current window make no system calls.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class MappedBlockSource implements BlockSource {
+
+  FileChannel channel;
+
+  long windowBytes;
+
+  @NonFinal
+  MappedByteBuffer window;
+
+  @NonFinal
+  long windowStart;
+
+  @SneakyThrows
+  MappedBlockSource (Path path, int windowBytes, int blockBytes) {
+    channel = FileChannel.open(path, READ);
+    this.windowBytes = Math.max(1, windowBytes / blockBytes) * (long) blockBytes;
+  }
+
+  @Override
+  @SneakyThrows
+  public long size () {
+    return channel.size();
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  public synchronized int read (long position, ByteBuffer destination) {
+    int total = 0;
+    while (destination.hasRemaining()) {
+      val current = position + total;
+      val mapped = windowFor(current);
+      if (mapped == null) {
+        break;
+      }
+      val offset = (int) (current - windowStart);
+      val windowLimit = mapped.limit();
+      val length = Math.min(destination.remaining(), windowLimit - offset);
+
+      mapped.limit(offset + length);
+      mapped.position(offset);
+      destination.put(mapped);
+      mapped.limit(windowLimit);
+      total += length;
+    }
+    return total;
+  }
+
+  @Override
+  @SneakyThrows
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  public synchronized void close () {
+    window = null;
+    channel.close();
+  }
+
+  /**
+   * Returns the window, which contains the position, and maps it, if it is needed.
+   *
+   * @param position the file's position.
+   *
+   * @return the mapped window or {@code null}, if the position is beyond the file's end.
+   */
+  @SneakyThrows
+  private MappedByteBuffer windowFor (long position) {
+    if (window != null && position >= windowStart && position < windowStart + window.limit()) {
+      return window;
+    }
+    val size = channel.size();
+    if (position >= size) {
+      return null;
+    }
+
+    windowStart = position < Header.BYTES
+                  ? 0
+                  : Header.BYTES + (position - Header.BYTES) / windowBytes * windowBytes;
+    val length = Math.min(windowBytes, size - windowStart);
+    window = channel.map(READ_ONLY, windowStart, length);
+    return window;
+  }
+}
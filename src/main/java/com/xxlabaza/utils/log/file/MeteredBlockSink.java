@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Reports the writes and the forces of the wrapped sink to the {@link LogFileMetrics}.
+ */
+@RequiredArgsConstructor
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class MeteredBlockSink implements BlockSink {
+
+  BlockSink delegate;
+
+  LogFileMetrics metrics;
+
+  @Override
+  public long position () {
+    return delegate.position();
+  }
+
+  @Override
+  public void write (ByteBuffer... buffers) {
+    long bytes = 0;
+    for (val buffer : buffers) {
+      bytes += buffer.remaining();
+    }
+    val start = System.nanoTime();
+    delegate.write(buffers);
+    metrics.onWrite(bytes, System.nanoTime() - start);
+  }
+
+  @Override
+  public void force () {
+    val start = System.nanoTime();
+    delegate.force();
+    metrics.onForce(System.nanoTime() - start);
+  }
+
+  @Override
+  public void truncate (long size) {
+    delegate.truncate(size);
+  }
+
+  @Override
+  public void close () {
+    delegate.close();
+  }
+}
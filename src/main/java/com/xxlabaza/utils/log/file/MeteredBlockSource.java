@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Reports the blocks' loads of the wrapped source to the {@link LogFileMetrics}.
+ */
+@RequiredArgsConstructor
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class MeteredBlockSource implements BlockSource {
+
+  BlockSource delegate;
+
+  LogFileMetrics metrics;
+
+  @Override
+  public long size () {
+    return delegate.size();
+  }
+
+  @Override
+  public int read (long position, ByteBuffer destination) {
+    val start = System.nanoTime();
+    val readed = delegate.read(position, destination);
+    metrics.onBlockLoad(readed, System.nanoTime() - start);
+    return readed;
+  }
+
+  @Override
+  public void close () {
+    delegate.close();
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The bounded lock-free ring buffer for many producers and a single consumer.
+ * <p>
+ * Every slot has a sequence number, which tells, whose turn it is: a producer claims
+ * a slot by a CAS on the tail and publishes its element by advancing the slot's sequence,
+ * the consumer frees the slot by advancing the sequence by the ring's capacity.
+ * So, the producers contend only on the tail counter and never on a lock.
+ *
+ * @param <E> the type of the ring's elements.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class MpscRing<E> {
+
+  private static final long FULL_PARK_NANOS = 10_000;
+
+  int capacity;
+
+  AtomicReferenceArray<E> elements;
+
+  AtomicLongArray sequences;
+
+  AtomicLong tail;
+
+  /**
+   * The consumer's thread, parked in the {@link #take(long) take} method, if any.
+   */
+  AtomicReference<Thread> waiter;
+
+  @NonFinal
+  long head;
+
+  MpscRing (int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The ring's capacity must be positive, but it is " + capacity);
+    }
+    this.capacity = capacity;
+    elements = new AtomicReferenceArray<>(capacity);
+    sequences = new AtomicLongArray(capacity);
+    for (int index = 0; index < capacity; index++) {
+      sequences.set(index, index);
+    }
+    tail = new AtomicLong();
+    waiter = new AtomicReference<>();
+  }
+
+  /**
+   * Puts the element into the ring, if it has a free slot.
+   *
+   * @param element the element to put.
+   *
+   * @return {@code true} if the element is put, {@code false} if the ring is full.
+   */
+  boolean offer (@NonNull E element) {
+    while (true) {
+      val position = tail.get();
+      val index = (int) (position % capacity);
+      val difference = sequences.get(index) - position;
+      if (difference < 0) {
+        return false;
+      }
+      if (difference == 0 && tail.compareAndSet(position, position + 1)) {
+        elements.lazySet(index, element);
+        sequences.set(index, position + 1);
+
+        val consumer = waiter.get();
+        if (consumer != null) {
+          LockSupport.unpark(consumer);
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Puts the element into the ring, parking the producer, while the ring is full.
+   *
+   * @param element the element to put.
+   */
+  void put (@NonNull E element) {
+    while (offer(element) == false) {
+      LockSupport.parkNanos(this, FULL_PARK_NANOS);
+    }
+  }
+
+  /**
+   * Takes the next element. Must be called from the consumer's thread only.
+   *
+   * @return the next element or {@code null}, if the ring is empty.
+   */
+  E poll () {
+    val index = (int) (head % capacity);
+    if (sequences.get(index) != head + 1) {
+      return null;
+    }
+    val element = elements.get(index);
+    elements.lazySet(index, null);
+    sequences.set(index, head + capacity);
+    head++;
+    return element;
+  }
+
+  /**
+   * Takes the next element, parking the consumer, while the ring is empty.
+   * Must be called from the consumer's thread only.
+   *
+   * @param timeoutNanos the maximum waiting time, in nanoseconds.
+   *
+   * @return the next element or {@code null}, if the ring is still empty after the timeout,
+   *         or the consumer's thread is unparked.
+   */
+  E take (long timeoutNanos) {
+    val element = poll();
+    if (element != null) {
+      return element;
+    }
+
+    waiter.set(Thread.currentThread());
+    try {
+      // a producer could publish an element before it sees the waiter
+      val published = poll();
+      if (published != null) {
+        return published;
+      }
+      LockSupport.parkNanos(this, timeoutNanos);
+      return poll();
+    } finally {
+      waiter.lazySet(null);
+    }
+  }
+
+  /**
+   * Moves the available elements into the collection. Must be called from the consumer's thread only.
+   *
+   * @param destination the collection for the taken elements.
+   *
+   * @param maxElements the maximum number of the elements to take.
+   *
+   * @return the number of the taken elements.
+   */
+  int drainTo (Collection<? super E> destination, int maxElements) {
+    int count = 0;
+    while (count < maxElements) {
+      val element = poll();
+      if (element == null) {
+        break;
+      }
+      destination.add(element);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Checks, that the ring has no published elements. Must be called from the consumer's thread only.
+   *
+   * @return {@code true} if the ring is empty.
+   */
+  boolean isEmpty () {
+    val index = (int) (head % capacity);
+    return sequences.get(index) != head + 1;
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The source for the sequential scans, which reads the file ahead in a separate thread.
+ * <p>
+ * The prefetch thread fills a small ring of the read-ahead buffers with large sequential reads,
+ * while the consumer's thread checks and decodes the already loaded blocks, so the disk and the CPU
+ * work in parallel. The thread is started by the first read, which is not served from the buffers,
+ * and it is restarted from the requested position, if the reads are not sequential.
+ * The prefetched bytes are dropped, when an already consumed position is read again,
+ * because the reader reloads a block only to see the bytes, which are written after the first load.
+ * The reads near the file's end are served directly, without the prefetch thread.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class PrefetchingBlockSource implements BlockSource {
+
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  BlockSource delegate;
+
+  String threadName;
+
+  int chunkBytes;
+
+  Chunk[] chunks;
+
+  BlockingQueue<Chunk> free;
+
+  BlockingQueue<Chunk> filled;
+
+  @NonFinal
+  Prefetch prefetch;
+
+  @NonFinal
+  Chunk current;
+
+  @NonFinal
+  long nextChunkStart;
+
+  /**
+   * The position after the last read, served from the prefetched chunks.
+   */
+  @NonFinal
+  long consumedPosition;
+
+  PrefetchingBlockSource (BlockSource delegate, LogFile.Config config, int blockBytes) {
+    this.delegate = delegate;
+    threadName = "log-file-prefetch-" + config.getPath().getFileName();
+
+    val prefetchConfig = config.getPrefetch();
+    chunkBytes = Math.max(blockBytes, prefetchConfig.getReadAheadBytes() / blockBytes * blockBytes);
+    val buffers = Math.max(2, prefetchConfig.getBuffers());
+    chunks = new Chunk[buffers];
+    free = new ArrayBlockingQueue<>(buffers);
+    filled = new ArrayBlockingQueue<>(buffers);
+  }
+
+  @Override
+  public long size () {
+    return delegate.size();
+  }
+
+  @Override
+  public int read (long position, ByteBuffer destination) {
+    if (position < consumedPosition) {
+      stop();
+    }
+    int total = 0;
+    while (destination.hasRemaining()) {
+      val chunk = chunk(position + total);
+      if (chunk == null) {
+        total += delegate.read(position + total, destination);
+        break;
+      }
+      total += chunk.copy(position + total, destination);
+    }
+    consumedPosition = position + total;
+    return total;
+  }
+
+  @Override
+  public void close () {
+    stop();
+    for (val chunk : chunks) {
+      if (chunk != null) {
+        DirectBufferPool.INSTANCE.release(chunk.buffer);
+      }
+    }
+    delegate.close();
+  }
+
+  /**
+   * Returns the prefetched chunk, which contains the position. The prefetch thread is restarted
+   * from the position, if it is not the next chunk's start.
+   *
+   * @param position the file's position.
+   *
+   * @return the chunk with the position or {@code null}, if the position should be read directly.
+   */
+  private Chunk chunk (long position) {
+    if (current != null && current.contains(position)) {
+      return current;
+    }
+    if (prefetch == null || position != nextChunkStart) {
+      stop();
+      if (delegate.size() - position <= chunkBytes) {
+        return null;
+      }
+      start(position);
+    }
+    return next(position);
+  }
+
+  @SneakyThrows
+  private Chunk next (long position) {
+    if (current != null) {
+      free.add(current);
+    }
+    current = filled.take();
+    if (current.error != null) {
+      throw current.error;
+    }
+    nextChunkStart = current.last
+                     ? -1
+                     : current.start + current.buffer.limit();
+    return current.contains(position)
+           ? current
+           : null;
+  }
+
+  private void start (long position) {
+    if (chunks[0] == null) {
+      for (int index = 0; index < chunks.length; index++) {
+        chunks[index] = new Chunk(DirectBufferPool.INSTANCE.acquire(chunkBytes));
+        free.add(chunks[index]);
+      }
+    }
+    prefetch = new Prefetch(position);
+    nextChunkStart = position;
+  }
+
+  @SneakyThrows
+  private void stop () {
+    if (prefetch == null) {
+      return;
+    }
+    prefetch.running = false;
+    prefetch.thread.join();
+    prefetch = null;
+
+    filled.drainTo(free);
+    if (current != null) {
+      free.add(current);
+      current = null;
+    }
+  }
+
+  @FieldDefaults(level = PRIVATE)
+  private static final class Chunk {
+
+    final ByteBuffer buffer;
+
+    long start;
+
+    boolean last;
+
+    Throwable error;
+
+    Chunk (ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    boolean contains (long position) {
+      return position >= start && position < start + buffer.limit();
+    }
+
+    int copy (long position, ByteBuffer destination) {
+      val offset = (int) (position - start);
+      val length = Math.min(buffer.limit() - offset, destination.remaining());
+      val view = buffer.duplicate();
+      view.position(offset);
+      view.limit(offset + length);
+      destination.put(view);
+      return length;
+    }
+  }
+
+  private final class Prefetch implements Runnable {
+
+    final Thread thread;
+
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    volatile boolean running;
+
+    long position;
+
+    Prefetch (long position) {
+      this.position = position;
+      running = true;
+      thread = new Thread(this, threadName);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    public void run () {
+      while (running == true) {
+        val chunk = poll();
+        if (chunk == null) {
+          continue;
+        }
+
+        chunk.buffer.clear();
+        chunk.start = position;
+        chunk.error = null;
+        try {
+          delegate.read(position, chunk.buffer);
+        } catch (Throwable ex) {
+          chunk.error = ex;
+        }
+        chunk.buffer.flip();
+        chunk.last = chunk.error != null || chunk.buffer.limit() < chunk.buffer.capacity();
+        filled.add(chunk);
+
+        if (chunk.last == true) {
+          return;
+        }
+        position += chunk.buffer.limit();
+      }
+    }
+
+    @SneakyThrows
+    private Chunk poll () {
+      return free.poll(POLL_TIMEOUT_MILLIS, MILLISECONDS);
+    }
+  }
+}
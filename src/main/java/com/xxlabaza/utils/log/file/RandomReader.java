@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.Record.Type.FIRST;
+import static com.xxlabaza.utils.log.file.Record.Type.FULL;
+import static com.xxlabaza.utils.log.file.Record.Type.LAST;
+import static com.xxlabaza.utils.log.file.Record.Type.MIDDLE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import com.xxlabaza.utils.log.file.exception.FileReadException;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Reads single records by their addresses, touching only the blocks, which hold the record.
+ * The instance is thread-safe.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class RandomReader implements AutoCloseable {
+
+  Path file;
+
+  BytesPool pool;
+
+  int blockBytes;
+
+  int prefixBytes;
+
+  Decompressor decompressor;
+
+  ChecksumType checksumType;
+
+  boolean directBuffers;
+
+  LogFileMetrics metrics;
+
+  BlockSource source;
+
+  @SneakyThrows
+  RandomReader (LogFile.Config config, BytesPool pool) {
+    file = config.getPath();
+    this.pool = pool;
+
+    try (val channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+      val header = Header.readOrWrite(channel, config);
+      blockBytes = header.getBlockBytes();
+      prefixBytes = header.prefixBytes();
+      decompressor = new Decompressor(header, config);
+      checksumType = header.checksumType();
+      directBuffers = config.getDirectBuffers();
+      metrics = config.getMetrics();
+    }
+    source = BlockSource.open(config, blockBytes);
+  }
+
+  @Override
+  public void close () {
+    source.close();
+  }
+
+  Bytes read (long address) {
+    if (address < Header.BYTES) {
+      throw noRecordAt(address);
+    }
+
+    val record = Bytes.resizableArray();
+    val prefix = Bytes.allocate(prefixBytes);
+    try (val block = Block.allocate(pool, blockBytes, checksumType, directBuffers)) {
+      long blockPosition = Header.BYTES + (address - Header.BYTES) / blockBytes * blockBytes;
+      val offset = (int) (address - blockPosition);
+      if (block.load(source, blockPosition) <= offset) {
+        throw noRecordAt(address);
+      }
+      block.moveReaderTo(offset);
+
+      val type = readChunk(block, record, prefix, address);
+      if (type == FULL) {
+        metrics.onDecode();
+        return decompressor.decode(record, prefix, Bytes.resizableArray());
+      }
+      if (type != FIRST) {
+        throw noRecordAt(address);
+      }
+
+      while (true) {
+        blockPosition += blockBytes;
+        if (block.load(source, blockPosition) <= 0) {
+          throw new FileReadException(file, "unexpected end of file");
+        }
+
+        val nextType = readChunk(block, record, prefix, address);
+        if (nextType == LAST) {
+          metrics.onDecode();
+          return decompressor.decode(record, prefix, Bytes.resizableArray());
+        }
+        if (nextType != MIDDLE) {
+          throw noRecordAt(address);
+        }
+      }
+    }
+  }
+
+  private Record.Type readChunk (Block block, Bytes record, Bytes prefix, long address) {
+    if (block.hasWholeChunk() == false) {
+      throw noRecordAt(address);
+    }
+    return block.read(record, prefix);
+  }
+
+  private FileReadException noRecordAt (long address) {
+    return new FileReadException(file, "there is no record at address " + address);
+  }
+}
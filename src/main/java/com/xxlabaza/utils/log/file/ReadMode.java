@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+/**
+ * The way a log file's blocks are read from the storage device.
+ */
+public enum ReadMode {
+
+  /**
+   * The blocks are read with positional {@link java.nio.channels.FileChannel} reads.
+   */
+  CHANNEL,
+
+  /**
+   * The file is mapped into memory with fixed-size windows and the blocks
+   * are copied straight from the mapped memory, without system calls.
+   */
+  MEMORY_MAPPED,
+
+  /**
+   * The sequential scans are read ahead by a separate prefetch thread with large reads,
+   * while the reading thread decodes the already loaded blocks. The other reads
+   * are the same as the {@link #CHANNEL} ones.
+   *
+   * @see LogFile.Config#getPrefetch()
+   */
+  PIPELINED;
+}
@@ -25,12 +25,16 @@ import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static lombok.AccessLevel.PRIVATE;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ConcurrentModificationException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
 
+import com.xxlabaza.utils.log.file.Record.Type;
 import com.xxlabaza.utils.log.file.exception.FileReadException;
 import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
 
@@ -39,6 +43,7 @@ import io.appulse.utils.BytesPool;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.val;
 
 @FieldDefaults(level = PRIVATE, makeFinal = true)
@@ -52,38 +57,190 @@ final class Reader implements AutoCloseable {
 
   Bytes recordBuffer;
 
+  Bytes prefix;
+
+  boolean timestamps;
+
+  Decompressor decompressor;
+
+  LogFileMetrics metrics;
+
+  ByteBuffer blockView;
+
+  BlockSource source;
+
+  int blockBytes;
+
+  @NonFinal
+  long blockPosition;
+
+  @NonFinal
+  long nextBlockPosition;
+
+  @NonFinal
+  long recordAddress;
+
+  @NonFinal
+  long recordEnd;
+
+  @NonFinal
+  long limit;
+
+  @NonFinal
+  boolean following;
+
+  @NonFinal
+  long position;
+
+  @NonFinal
+  Type lastType;
+
   @Builder
   @SneakyThrows
-  Reader (LogFile logFile, LogFile.Config config, BytesPool pool) {
+  Reader (LogFile logFile, LogFile.Config config, BytesPool pool, boolean readOnly) {
     this.logFile = logFile;
     file = config.getPath();
 
-    try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
-      if (channel.size() == 0) {
-        val header = new Header(config);
-        header.write(channel);
-        val buffer = pool.acquire(config.getBlockBufferSizeBytes());
-        block = new Block(buffer);
-      } else {
-        val header = Header.read(channel);
-        val buffer = pool.acquire(header.getBlockBytes());
-        block = new Block(buffer);
+    Header header;
+    if (readOnly == true) {
+      try (val channel = FileChannel.open(config.getPath(), READ)) {
+        header = Header.read(channel);
+      }
+    } else {
+      try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
+        header = Header.readOrWrite(channel, config);
       }
     }
+    blockBytes = header.getBlockBytes();
+    block = Block.allocate(pool, blockBytes, header.checksumType(), config.getDirectBuffers());
     recordBuffer = Bytes.resizableArray();
+    prefix = Bytes.allocate(header.prefixBytes());
+    timestamps = header.hasTimestamps();
+    decompressor = new Decompressor(header, config);
+    metrics = config.getMetrics();
+    blockView = block.view();
+    source = BlockSource.sequential(config, blockBytes);
+    nextBlockPosition = Header.BYTES;
+    position = Header.BYTES;
+
+    limit = Math.min(logFile.committedSize(), source.size());
   }
 
   @Override
   public void close () {
     block.close();
+    source.close();
+  }
+
+  /**
+   * Moves the reader to the record with the specified address.
+   *
+   * @param address the record's address.
+   */
+  void seek (long address) {
+    block.reset();
+    blockPosition = Header.BYTES + (address - Header.BYTES) / blockBytes * blockBytes;
+    nextBlockPosition = blockPosition;
+    if (loadNextBlock() == true) {
+      block.moveReaderTo((int) (address - blockPosition));
+    }
   }
 
   long read (RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    return read(() -> consumer.consume(record(), position), false, corruptionHandler);
+  }
+
+  long read (RecordConsumer consumer, CorruptionHandler corruptionHandler, long skip, long limit) {
+    val counter = new AtomicLong();
+    return read(() -> {
+      val index = counter.getAndIncrement();
+      if (index < skip) {
+        return true;
+      }
+      return consumer.consume(record(), position) && index - skip + 1 < limit;
+    }, false, corruptionHandler);
+  }
+
+  long read (RecordConsumer consumer, CorruptionHandler corruptionHandler, Instant from, Instant to) {
+    if (timestamps == false) {
+      throw new IllegalStateException("The log file " + file + " has no records' timestamps");
+    }
+    val fromTime = from.toEpochMilli();
+    val toTime = to.toEpochMilli();
+    return read(() -> {
+      val timestamp = timestamp();
+      if (timestamp < fromTime) {
+        return true;
+      }
+      return timestamp < toTime && consumer.consume(record(), position);
+    }, false, corruptionHandler);
+  }
+
+  /**
+   * Reads the records, which are appended after the specified address, up to the limit.
+   * The reading tolerates the concurrent appends: an incomplete record at the end
+   * is not delivered and is read again by the next call.
+   *
+   * @param address the address, from which the reading starts.
+   *
+   * @param bound the file's position, up to which the records are read.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @return the address after the last delivered record, or {@code -1}, if the consumer stopped the reading.
+   */
+  long follow (long address, long bound, RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    limit = Math.min(bound, source.size());
+    following = true;
+
+    val from = limit < address
+               ? Header.BYTES
+               : address;
+    seek(from);
+    recordEnd = from;
+    recordBuffer.reset();
+    prefix.reset();
+
+    while (block.hasContent() == true || loadNextBlock() == true) {
+      if (readRecord(false, corruptionHandler) == false) {
+        break;
+      }
+      if (consumer.consume(record(), position) == false) {
+        return -1;
+      }
+      recordBuffer.reset();
+      prefix.reset();
+    }
+    return recordEnd;
+  }
+
+  long readAddresses (LongPredicate consumer, CorruptionHandler corruptionHandler) {
+    return read(() -> consumer.test(recordAddress), false, corruptionHandler);
+  }
+
+  /**
+   * Returns the current record's append timestamp.
+   *
+   * @return the timestamp, in milliseconds since the epoch, or {@code 0}, if the file has no timestamps.
+   */
+  long timestamp () {
+    return timestamps == false
+           ? 0
+           : prefix.getLong(0);
+  }
+
+  long readViews (RecordViewConsumer consumer, CorruptionHandler corruptionHandler) {
+    return read(() -> consumer.consume(currentView(), position), true, corruptionHandler);
+  }
+
+  private long read (BooleanSupplier delivery, boolean zeroCopy, CorruptionHandler corruptionHandler) {
     try {
       if (Files.notExists(file)) {
         return -1;
       }
-      return read0(consumer, corruptionHandler);
+      return read0(delivery, zeroCopy && decompressor.isEnabled() == false, corruptionHandler);
     } catch (FileReadException ex) {
       throw ex;
     } catch (Exception ex) {
@@ -91,26 +248,18 @@ final class Reader implements AutoCloseable {
     }
   }
 
-  private long read0 (RecordConsumer consumer, CorruptionHandler corruptionHandler) throws IOException {
-    try (val channel = FileChannel.open(file, READ)) {
-      channel.position(Header.BYTES);
-
-      val expectedModificationCount = logFile.getModificationCount();
-      while (block.hasContent() == true || block.loadNext(channel) == true) {
-        val currentModificationCount = logFile.getModificationCount();
-        if (expectedModificationCount != currentModificationCount) {
-          throw new ConcurrentModificationException();
-        }
-        if (readRecord(channel, corruptionHandler) == false) {
-          break;
-        }
-        if (consumer.consume(recordBuffer, channel.position()) == false) {
-          break;
-        }
-        recordBuffer.reset();
+  private long read0 (BooleanSupplier delivery, boolean zeroCopy, CorruptionHandler corruptionHandler) {
+    while (block.hasContent() == true || loadNextBlock() == true) {
+      if (readRecord(zeroCopy, corruptionHandler) == false) {
+        break;
       }
-      return channel.position();
+      if (delivery.getAsBoolean() == false) {
+        break;
+      }
+      recordBuffer.reset();
+      prefix.reset();
     }
+    return position;
   }
 
   @SuppressWarnings({
@@ -118,43 +267,88 @@ final class Reader implements AutoCloseable {
       "PMD.UnusedPrivateMethod"
   })
   @SneakyThrows
-  private boolean readRecord (FileChannel channel, CorruptionHandler corruptionHandler) {
+  private boolean readRecord (boolean zeroCopy, CorruptionHandler corruptionHandler) {
     while (true) {
-      if (block.hasContent() == false && block.loadNext(channel) == false) {
+      if (block.hasContent() == false && loadNextBlock() == false) {
+        if (following == true) {
+          return false;
+        }
         throw new FileReadException(file, "unexpected end of file");
       }
+      if (following == true && block.hasWholeChunk() == false) {
+        // the chunk's body is not on disk yet, the next follow retries it
+        return false;
+      }
 
       try {
-        val type = block.read(recordBuffer);
-        if (type == UNDEFINED) {
+        val chunkAddress = blockPosition + block.readerOffset();
+        lastType = zeroCopy
+                   ? block.read(recordBuffer, blockView, prefix)
+                   : block.read(recordBuffer, prefix);
+
+        if (lastType == FULL || lastType == FIRST) {
+          recordAddress = chunkAddress;
+        }
+        if (lastType == UNDEFINED) {
           return false;
         }
-        if (type == FULL || type == LAST) {
+        if (lastType == FULL || lastType == LAST) {
+          recordEnd = blockPosition + block.readerOffset();
+          metrics.onDecode();
           return true;
         }
       } catch (RecordCorruptedException ex) {
+        recordBuffer.reset();
+        prefix.reset();
+        recordEnd = blockPosition + blockBytes;
+        metrics.onCorruption();
         if (corruptionHandler.handle(ex) == false) {
           return false;
         }
-        if (moveToNextRecord(channel) == false) {
+        if (moveToNextRecord() == false) {
           return false;
         }
+        recordEnd = blockPosition + block.readerOffset();
       } catch (Exception ex) {
         throw new FileReadException(file, ex);
       }
     }
   }
 
-  private boolean moveToNextRecord (FileChannel channel) {
+  private Bytes record () {
+    return decompressor.decode(recordBuffer, prefix);
+  }
+
+  private ByteBuffer currentView () {
+    if (lastType == FULL && decompressor.isEnabled() == false) {
+      return blockView;
+    }
+    val record = record();
+    return ByteBuffer.wrap(record.array(), 0, record.writerIndex()).asReadOnlyBuffer();
+  }
+
+  private boolean moveToNextRecord () {
     while (true) {
-      val hasBlock = block.loadNext(channel);
+      val hasBlock = loadNextBlock();
       if (hasBlock == false) {
         return false;
       }
-      val hasRecord = block.moveTo(FIRST, FULL);
+      val hasRecord = block.moveTo(Block.RECORD_START_TYPES);
       if (hasRecord == true) {
         return true;
       }
     }
   }
+
+  private boolean loadNextBlock () {
+    if (nextBlockPosition >= limit) {
+      return false;
+    }
+    val readed = (int) Math.min(block.load(source, nextBlockPosition), limit - nextBlockPosition);
+    block.limit(readed);
+    blockPosition = nextBlockPosition;
+    position = nextBlockPosition + readed;
+    nextBlockPosition += blockBytes;
+    return readed > 0;
+  }
 }
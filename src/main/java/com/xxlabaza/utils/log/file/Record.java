@@ -21,8 +21,7 @@ import static com.xxlabaza.utils.log.file.Record.Header.CHECKSUM_OFFSET;
 import static com.xxlabaza.utils.log.file.Record.Header.TYPE_OFFSET;
 import static com.xxlabaza.utils.log.file.Record.Type.UNDEFINED;
 
-import java.util.stream.Stream;
-import java.util.zip.CRC32;
+import java.nio.ByteBuffer;
 
 import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
 
@@ -32,89 +31,131 @@ import lombok.val;
 
 final class Record {
 
-  static long generateChecksum (byte[] bytes, int offset, int length) {
-    val crc = new CRC32();
-    crc.update(bytes, offset, length);
-    return crc.getValue();
-  }
-
-  static void write (Bytes destination, Type type, Bytes from) {
-    val readedBytes = Math.min(destination.writableBytes() - Header.BYTES, from.readableBytes());
-
-    val beforeChecksumIndex = destination.writerIndex();
-    destination.write4B(0); // reserve
-
-    val afterChecksumIndex = destination.writerIndex();
-    destination
-        .write1B(type.getCode())
-        .write2B(readedBytes)
-        .writeNB(from.array(), from.readerIndex(), readedBytes);
-
-    val checksum = generateChecksum(
-        destination.array(),
-        afterChecksumIndex,
-        destination.writerIndex() - afterChecksumIndex
+  /**
+   * Writes a chunk at the buffer's index, the buffer could be a heap or a direct one.
+   * The buffer's position is not preserved.
+   *
+   * @param destination the block's buffer.
+   *
+   * @param index the chunk's index in the buffer.
+   *
+   * @param type the chunk's type.
+   *
+   * @param from the record's buffer, its reader index is moved forward by the length.
+   *
+   * @param length the chunk's body length.
+   *
+   * @param checksumType the file's checksum algorithm.
+   *
+   * @return the index after the written chunk.
+   */
+  static int write (ByteBuffer destination, int index, Type type, Bytes from, int length, ChecksumType checksumType) {
+    destination.put(index + TYPE_OFFSET, type.getCode());
+    destination.putShort(index + BODY_LENGTH_OFFSET, (short) length);
+    destination.position(index + Header.BYTES);
+    destination.put(from.array(), from.readerIndex(), length);
+
+    val checksum = checksumType.calculate(
+        destination,
+        index + TYPE_OFFSET,
+        Header.BYTES - Header.CHECKSUM_BYTES + length
     );
-    destination.set4B(beforeChecksumIndex, checksum);
+    destination.putInt(index + CHECKSUM_OFFSET, (int) checksum);
 
-    from.readerIndex(from.readerIndex() + readedBytes);
+    from.readerIndex(from.readerIndex() + length);
+    return index + Header.BYTES + length;
   }
 
-  static Type read (Bytes destination, Bytes source) {
-    if (source.isReadable(Header.BYTES) == false) {
+  /**
+   * Verifies the checksum of the chunk at the buffer's index.
+   *
+   * @param source the block's buffer.
+   *
+   * @param index the chunk's index in the buffer.
+   *
+   * @param limit the end of the block's content.
+   *
+   * @param checksumType the file's checksum algorithm.
+   *
+   * @return the chunk's type or {@link Type#UNDEFINED}, if there is no chunk at the index.
+   *
+   * @throws RecordCorruptedException if the chunk's checksum does not match its content.
+   */
+  static Type check (ByteBuffer source, int index, int limit, ChecksumType checksumType) {
+    if (limit - index < Header.BYTES) {
       return UNDEFINED;
     }
-    val type = getType(source);
-    val length = getLength(source);
-
-    val checksum = source.readUnsignedInt();
+    val checksum = getChecksum(source, index, limit);
     if (checksum == 0) {
       return UNDEFINED;
     }
 
-    val calculatedChecksum = generateChecksum(
-        source.array(),
-        source.readerIndex(),
-        Header.BYTES - Header.CHECKSUM_BYTES + length
+    val calculatedChecksum = checksumType.calculate(
+        source,
+        index + TYPE_OFFSET,
+        Header.BYTES - Header.CHECKSUM_BYTES + getLength(source, index, limit)
     );
     if (checksum != calculatedChecksum) {
       throw new RecordCorruptedException(checksum, calculatedChecksum);
     }
+    return getType(source, index, limit);
+  }
 
-    val offset = source.readerIndex() + Header.TYPE_BYTES + Header.BODY_LENGTH_BYTES;
-    destination.writeNB(source.array(), offset, length);
-    source.readerIndex(offset + length);
-    return type;
+  /**
+   * Copies the buffer's bytes to the destination, the buffer could be a heap or a direct one.
+   *
+   * @param source the block's buffer.
+   *
+   * @param offset the index of the first copied byte.
+   *
+   * @param length the number of the copied bytes.
+   *
+   * @param destination the destination buffer.
+   *
+   * @param scratch the intermediate array for the direct buffer's copying.
+   */
+  static void copy (ByteBuffer source, int offset, int length, Bytes destination, byte[] scratch) {
+    if (source.hasArray()) {
+      destination.writeNB(source.array(), source.arrayOffset() + offset, length);
+      return;
+    }
+    source.position(offset);
+    int remaining = length;
+    while (remaining > 0) {
+      val chunk = Math.min(remaining, scratch.length);
+      source.get(scratch, 0, chunk);
+      destination.writeNB(scratch, 0, chunk);
+      remaining -= chunk;
+    }
   }
 
-  static long getChecksum (Bytes from) {
-    if (from.isReadable(Header.BYTES) == false) {
+  static long getChecksum (ByteBuffer from, int index, int limit) {
+    if (limit - index < Header.BYTES) {
       return 0;
     }
-    val currentReaderIndex = from.readerIndex();
-    val index = currentReaderIndex + CHECKSUM_OFFSET;
-    return from.getUnsignedInt(index);
+    return from.getInt(index + CHECKSUM_OFFSET) & 0xFFFFFFFFL;
   }
 
-  static Type getType (Bytes from) {
-    if (from.isReadable(Header.BYTES) == false) {
+  static Type getType (ByteBuffer from, int index, int limit) {
+    if (limit - index < Header.BYTES) {
       return UNDEFINED;
     }
-    val currentReaderIndex = from.readerIndex();
-    val index = currentReaderIndex + TYPE_OFFSET;
-    val typeTag = from.getByte(index);
-    return Record.Type.from(typeTag);
+    return Record.Type.from(from.get(index + TYPE_OFFSET));
   }
 
-  static int getLength (Bytes from) {
-    if (from.isReadable(Header.BYTES) == false) {
+  static int getLength (ByteBuffer from, int index, int limit) {
+    if (limit - index < Header.BYTES) {
       return 0;
     }
-    val currentReaderIndex = from.readerIndex();
-    val index = currentReaderIndex + BODY_LENGTH_OFFSET;
-    return from.getUnsignedShort(index);
+    return from.getShort(index + BODY_LENGTH_OFFSET) & 0xFFFF;
   }
 
+  /**
+   * The size of the record's timestamp prefix, in the log files with the
+   * {@link com.xxlabaza.utils.log.file.Header#hasTimestamps() timestamps}.
+   */
+  static final int TIMESTAMP_BYTES = Long.BYTES;
+
   private Record () {
     throw new UnsupportedOperationException();
   }
@@ -143,18 +184,48 @@ final class Record {
     MIDDLE(0x03),
     LAST(0x04);
 
+    private static final Type[] BY_CODE;
+
+    static {
+      BY_CODE = new Type[values().length];
+      for (val type : values()) {
+        BY_CODE[type.getCode()] = type;
+      }
+    }
+
+    /**
+     * Combines the types into a bit mask, which could be tested by {@link #in(int)}.
+     *
+     * @param types the types to combine.
+     *
+     * @return the types' bit mask.
+     */
+    static int mask (Type... types) {
+      int result = 0;
+      for (val type : types) {
+        result |= type.bit;
+      }
+      return result;
+    }
+
     @Getter
     private final byte code;
 
+    private final int bit;
+
     Type (int code) {
       this.code = (byte) code;
+      bit = 1 << code;
     }
 
     static Type from (byte code) {
-      return Stream.of(values())
-          .filter(it -> it.getCode() == code)
-          .findAny()
-          .orElse(UNDEFINED);
+      return code >= 0 && code < BY_CODE.length
+             ? BY_CODE[code]
+             : UNDEFINED;
+    }
+
+    boolean in (int mask) {
+      return (mask & bit) != 0;
     }
   }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.Record.Type.FULL;
+import static com.xxlabaza.utils.log.file.Record.Type.LAST;
+import static com.xxlabaza.utils.log.file.Record.Type.UNDEFINED;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The spliterator over the log file's records, which splits the file on the block boundaries.
+ * <p>
+ * A spliterator owns the records, which start in its blocks range. It skips the leading chunks
+ * of a record, started in the previous range, and reads beyond its range only to complete
+ * its last record. All the spliterators share a single channel source, because its positional
+ * reads are thread-safe.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class RecordSpliterator implements Spliterator<Bytes>, AutoCloseable {
+
+  private static final long MIN_SPLIT_BLOCKS = 8;
+
+  @SneakyThrows
+  static RecordSpliterator open (LogFile logFile, BytesPool pool, CorruptionHandler corruptionHandler) {
+    val config = logFile.getConfig();
+    Header header;
+    try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
+      header = Header.readOrWrite(channel, config);
+    }
+
+    val blockBytes = header.getBlockBytes();
+    val limit = logFile.committedSize();
+    val context = new Context(
+        BlockSource.metered(new ChannelBlockSource(config.getPath()), config),
+        pool,
+        blockBytes,
+        header.prefixBytes(),
+        header.checksumType(),
+        config.getDirectBuffers(),
+        new Decompressor(header, config),
+        config.getMetrics(),
+        limit,
+        corruptionHandler
+    );
+
+    val blocks = (limit - Header.BYTES + blockBytes - 1) / blockBytes;
+    return new RecordSpliterator(context, 0, Math.max(0, blocks));
+  }
+
+  Context context;
+
+  @NonFinal
+  long firstBlock;
+
+  long endBlock;
+
+  @NonFinal
+  long currentBlock;
+
+  @NonFinal
+  Block block;
+
+  @NonFinal
+  Bytes prefix;
+
+  @NonFinal
+  boolean finished;
+
+  private RecordSpliterator (Context context, long firstBlock, long endBlock) {
+    this.context = context;
+    this.firstBlock = firstBlock;
+    this.endBlock = endBlock;
+  }
+
+  @Override
+  public void close () {
+    context.getSource().close();
+  }
+
+  @Override
+  public boolean tryAdvance (Consumer<? super Bytes> action) {
+    if (finished == true) {
+      return false;
+    }
+    if (block == null && start() == false) {
+      finish();
+      return false;
+    }
+
+    val record = nextRecord();
+    if (record == null) {
+      finish();
+      return false;
+    }
+    action.accept(record);
+    return true;
+  }
+
+  @Override
+  public Spliterator<Bytes> trySplit () {
+    if (block != null || finished == true || endBlock - firstBlock < MIN_SPLIT_BLOCKS * 2) {
+      return null;
+    }
+    val middleBlock = firstBlock + (endBlock - firstBlock) / 2;
+    val prefixSpliterator = new RecordSpliterator(context, firstBlock, middleBlock);
+    firstBlock = middleBlock;
+    return prefixSpliterator;
+  }
+
+  @Override
+  public long estimateSize () {
+    return finished == true
+           ? 0
+           : endBlock - firstBlock;
+  }
+
+  @Override
+  public int characteristics () {
+    return ORDERED | NONNULL | IMMUTABLE;
+  }
+
+  private boolean start () {
+    block = Block.allocate(
+        context.getPool(),
+        context.getBlockBytes(),
+        context.getChecksumType(),
+        context.isDirectBuffers()
+    );
+    prefix = Bytes.allocate(context.getPrefixBytes());
+    currentBlock = firstBlock - 1;
+    if (loadNextBlock() == false) {
+      return false;
+    }
+    return firstBlock == 0 || skipToNextRecord();
+  }
+
+  private Bytes nextRecord () {
+    while (true) {
+      if (currentBlock >= endBlock) {
+        return null;
+      }
+      if (block.hasContent() == false && loadNextBlockInRange() == false) {
+        return null;
+      }
+
+      try {
+        return readRecord();
+      } catch (RecordCorruptedException ex) {
+        context.getMetrics().onCorruption();
+        if (context.getCorruptionHandler().handle(ex) == false) {
+          return null;
+        }
+        if (loadNextBlockInRange() == false || skipToNextRecord() == false) {
+          return null;
+        }
+      }
+    }
+  }
+
+  private Bytes readRecord () {
+    val record = Bytes.resizableArray();
+    prefix.reset();
+    while (true) {
+      if (block.hasContent() == false && loadNextBlock() == false) {
+        return null;
+      }
+      val type = block.read(record, prefix);
+      if (type == UNDEFINED) {
+        return null;
+      }
+      if (type == FULL || type == LAST) {
+        context.getMetrics().onDecode();
+        return context.getDecompressor().decode(record, prefix, Bytes.resizableArray());
+      }
+    }
+  }
+
+  private boolean skipToNextRecord () {
+    do {
+      if (block.moveTo(Block.RECORD_START_TYPES) == true) {
+        return true;
+      }
+    } while (loadNextBlockInRange() == true);
+    return false;
+  }
+
+  private boolean loadNextBlockInRange () {
+    return currentBlock + 1 < endBlock && loadNextBlock();
+  }
+
+  private boolean loadNextBlock () {
+    currentBlock++;
+    val position = Header.BYTES + currentBlock * context.getBlockBytes();
+    if (position >= context.getLimit()) {
+      return false;
+    }
+    val readed = (int) Math.min(block.load(context.getSource(), position), context.getLimit() - position);
+    block.limit(readed);
+    return readed > 0;
+  }
+
+  private void finish () {
+    finished = true;
+    if (block != null) {
+      block.close();
+      block = null;
+    }
+  }
+
+  @Value
+  private static class Context {
+
+    BlockSource source;
+
+    BytesPool pool;
+
+    int blockBytes;
+
+    int prefixBytes;
+
+    ChecksumType checksumType;
+
+    boolean directBuffers;
+
+    Decompressor decompressor;
+
+    LogFileMetrics metrics;
+
+    long limit;
+
+    CorruptionHandler corruptionHandler;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents an operation that accepts a read-only view of a readed record and a current file position offset.
+ * <p>
+ * The records, which are placed entirely in a single block, are passed as a view
+ * of the block buffer without copying. The view is valid only during the callback,
+ * the consumer must copy the data it wants to keep.
+ */
+@FunctionalInterface
+public interface RecordViewConsumer {
+
+  /**
+   * Performs this operation on the given arguments.
+   *
+   * @param record the read-only view of the record's bytes, from its position till its limit.
+   *
+   * @param currentPosition the current file position offset.
+   *
+   * @return {@code true} if data reading should be continued, {@code false} otherwise.
+   */
+  boolean consume (ByteBuffer record, long currentPosition);
+}
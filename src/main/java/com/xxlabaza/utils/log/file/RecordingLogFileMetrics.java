@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The {@link LogFileMetrics} implementation, which aggregates the events into
+ * the counters and the {@link LatencyHistogram latency histograms}, in nanoseconds.
+ * The aggregated values could be periodically exported to a telemetry system.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class RecordingLogFileMetrics implements LogFileMetrics {
+
+  LongAdder appendedRecords = new LongAdder();
+
+  LongAdder appendedBytes = new LongAdder();
+
+  LongAdder writtenBytes = new LongAdder();
+
+  LongAdder paddingBytes = new LongAdder();
+
+  LongAdder loadedBlocks = new LongAdder();
+
+  LongAdder loadedBytes = new LongAdder();
+
+  LongAdder decodedRecords = new LongAdder();
+
+  LongAdder corruptions = new LongAdder();
+
+  LongAdder cacheHits = new LongAdder();
+
+  LongAdder cacheMisses = new LongAdder();
+
+  LongAdder cacheEvictions = new LongAdder();
+
+  /**
+   * The appends' latencies, including the force and the group commit waiting.
+   *
+   * @return the appends' latency histogram.
+   */
+  @Getter
+  LatencyHistogram appendLatency = new LatencyHistogram();
+
+  /**
+   * The blocks' writes latencies.
+   *
+   * @return the writes' latency histogram.
+   */
+  @Getter
+  LatencyHistogram writeLatency = new LatencyHistogram();
+
+  /**
+   * The file's forces latencies.
+   *
+   * @return the forces' latency histogram.
+   */
+  @Getter
+  LatencyHistogram forceLatency = new LatencyHistogram();
+
+  /**
+   * The blocks' loads latencies.
+   *
+   * @return the loads' latency histogram.
+   */
+  @Getter
+  LatencyHistogram blockLoadLatency = new LatencyHistogram();
+
+  @Override
+  public void onAppend (int records, long bytes, long nanos) {
+    appendedRecords.add(records);
+    appendedBytes.add(bytes);
+    appendLatency.record(nanos);
+  }
+
+  @Override
+  public void onWrite (long bytes, long nanos) {
+    writtenBytes.add(bytes);
+    writeLatency.record(nanos);
+  }
+
+  @Override
+  public void onForce (long nanos) {
+    forceLatency.record(nanos);
+  }
+
+  @Override
+  public void onPadding (int bytes) {
+    paddingBytes.add(bytes);
+  }
+
+  @Override
+  public void onBlockLoad (int bytes, long nanos) {
+    loadedBlocks.increment();
+    loadedBytes.add(bytes);
+    blockLoadLatency.record(nanos);
+  }
+
+  @Override
+  public void onDecode () {
+    decodedRecords.increment();
+  }
+
+  @Override
+  public void onCorruption () {
+    corruptions.increment();
+  }
+
+  @Override
+  public void onCacheHit () {
+    cacheHits.increment();
+  }
+
+  @Override
+  public void onCacheMiss () {
+    cacheMisses.increment();
+  }
+
+  @Override
+  public void onCacheEviction () {
+    cacheEvictions.increment();
+  }
+
+  /**
+   * The number of the appended records.
+   *
+   * @return the appended records count.
+   */
+  public long getAppendedRecords () {
+    return appendedRecords.sum();
+  }
+
+  /**
+   * The appended records' bytes, before the compression.
+   *
+   * @return the appended bytes count.
+   */
+  public long getAppendedBytes () {
+    return appendedBytes.sum();
+  }
+
+  /**
+   * The bytes, written to the file, including the chunks' headers and the padding.
+   *
+   * @return the written bytes count.
+   */
+  public long getWrittenBytes () {
+    return writtenBytes.sum();
+  }
+
+  /**
+   * The zero bytes, which padded the blocks' tails.
+   *
+   * @return the padding bytes count.
+   */
+  public long getPaddingBytes () {
+    return paddingBytes.sum();
+  }
+
+  /**
+   * The number of the blocks, loaded from the file.
+   *
+   * @return the loaded blocks count.
+   */
+  public long getLoadedBlocks () {
+    return loadedBlocks.sum();
+  }
+
+  /**
+   * The bytes of the blocks, loaded from the file.
+   *
+   * @return the loaded bytes count.
+   */
+  public long getLoadedBytes () {
+    return loadedBytes.sum();
+  }
+
+  /**
+   * The number of the records, decoded by the readers.
+   *
+   * @return the decoded records count.
+   */
+  public long getDecodedRecords () {
+    return decodedRecords.sum();
+  }
+
+  /**
+   * The number of the corrupted records, met by the readers.
+   *
+   * @return the corruptions count.
+   */
+  public long getCorruptions () {
+    return corruptions.sum();
+  }
+
+  /**
+   * The number of the {@link LogFilesManager} cache's hits.
+   *
+   * @return the cache hits count.
+   */
+  public long getCacheHits () {
+    return cacheHits.sum();
+  }
+
+  /**
+   * The number of the {@link LogFilesManager} cache's misses.
+   *
+   * @return the cache misses count.
+   */
+  public long getCacheMisses () {
+    return cacheMisses.sum();
+  }
+
+  /**
+   * The number of the files, evicted from the {@link LogFilesManager} cache.
+   *
+   * @return the cache evictions count.
+   */
+  public long getCacheEvictions () {
+    return cacheEvictions.sum();
+  }
+}
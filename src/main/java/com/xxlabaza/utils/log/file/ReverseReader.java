@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.Record.Type.FIRST;
+import static com.xxlabaza.utils.log.file.Record.Type.LAST;
+import static com.xxlabaza.utils.log.file.Record.Type.MIDDLE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import com.xxlabaza.utils.log.file.exception.FileReadException;
+import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Reads the records from the file's end to its beginning.
+ * <p>
+ * The blocks are loaded backwards, the records' starts are found by the chunks' headers
+ * and the records, which span several blocks, are completed by reading the following blocks.
+ * So the reading cost is proportional to the number of the consumed records, not to the file's size.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class ReverseReader implements AutoCloseable {
+
+  Path file;
+
+  Block block;
+
+  Block tail;
+
+  int[] offsets;
+
+  Bytes record;
+
+  Bytes prefix;
+
+  Decompressor decompressor;
+
+  LogFileMetrics metrics;
+
+  BlockSource source;
+
+  int blockBytes;
+
+  long limit;
+
+  @SneakyThrows
+  ReverseReader (LogFile logFile, BytesPool pool) {
+    val config = logFile.getConfig();
+    file = config.getPath();
+    Header header;
+    try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
+      header = Header.readOrWrite(channel, config);
+    }
+    blockBytes = header.getBlockBytes();
+    block = Block.allocate(pool, blockBytes, header.checksumType(), config.getDirectBuffers());
+    tail = Block.allocate(pool, blockBytes, header.checksumType(), config.getDirectBuffers());
+    offsets = new int[blockBytes / Record.Header.BYTES + 1];
+    record = Bytes.resizableArray();
+    prefix = Bytes.allocate(header.prefixBytes());
+    decompressor = new Decompressor(header, config);
+    metrics = config.getMetrics();
+    source = BlockSource.open(config, blockBytes);
+    limit = logFile.committedSize();
+  }
+
+  @Override
+  public void close () {
+    block.close();
+    tail.close();
+    source.close();
+  }
+
+  /**
+   * Reads the records from the last one to the first one.
+   *
+   * @param consumer the client's logic for processing the readed data,
+   *                 it receives the record's address as the current position.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   */
+  void read (RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    try {
+      read0(consumer, corruptionHandler);
+    } catch (FileReadException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new FileReadException(file, "unexpected error", ex);
+    }
+  }
+
+  private void read0 (RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    for (long blockIndex = (limit - Header.BYTES - 1) / blockBytes; blockIndex >= 0; blockIndex--) {
+      val blockPosition = Header.BYTES + blockIndex * blockBytes;
+      if (load(block, blockPosition) == false) {
+        continue;
+      }
+
+      for (int index = block.recordOffsets(offsets) - 1; index >= 0; index--) {
+        try {
+          if (readRecord(blockPosition, offsets[index]) == false) {
+            continue;
+          }
+        } catch (RecordCorruptedException ex) {
+          metrics.onCorruption();
+          if (corruptionHandler.handle(ex) == false) {
+            return;
+          }
+          continue;
+        }
+
+        metrics.onDecode();
+        val decoded = decompressor.decode(record, prefix);
+        if (consumer.consume(decoded, blockPosition + offsets[index]) == false) {
+          return;
+        }
+      }
+    }
+  }
+
+  private boolean readRecord (long blockPosition, int offset) {
+    record.reset();
+    prefix.reset();
+
+    block.moveReaderTo(offset);
+    if (block.read(record, prefix) != FIRST) {
+      return true;
+    }
+
+    long nextBlockPosition = blockPosition + blockBytes;
+    while (load(tail, nextBlockPosition) == true) {
+      val type = tail.read(record, prefix);
+      if (type == LAST) {
+        return true;
+      }
+      if (type != MIDDLE) {
+        return false;
+      }
+      nextBlockPosition += blockBytes;
+    }
+    return false;
+  }
+
+  private boolean load (Block destination, long position) {
+    if (position >= limit) {
+      return false;
+    }
+    val readed = (int) Math.min(destination.load(source, position), limit - position);
+    destination.limit(readed);
+    return readed > 0;
+  }
+}
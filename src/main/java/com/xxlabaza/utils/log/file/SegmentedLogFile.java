@@ -0,0 +1,436 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.CorruptionHandler.PRINT_STACK_TRACE_AND_CONTINUE;
+import static io.appulse.utils.SizeUnit.MEGABYTES;
+import static java.util.stream.Collectors.toList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.With;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The segmented log, which is a directory of the {@link LogFile log files} (segments).
+ * <p>
+ * The records are appended to the latest (active) segment, which is rolled to a new one
+ * at the configured size or age. The oldest segments are deleted as a whole, according to
+ * the retention policy, so the disk usage stays bounded under continuous ingestion.
+ * The reads iterate across all the segments, from the oldest to the newest one.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class SegmentedLogFile implements AutoCloseable {
+
+  private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{20}(-\\d+)?\\.log");
+
+  private static final int SEGMENT_ID_DIGITS = 20;
+
+  Config config;
+
+  BytesPool pool;
+
+  List<Path> segments;
+
+  ReadWriteLock lock;
+
+  AtomicLong activeBytes;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  @NonFinal
+  volatile LogFile active;
+
+  @NonFinal
+  long activeCreatedMillis;
+
+  /**
+   * Constructs a new {@code SegmentedLogFile} instance and opens the latest existing segment, if any.
+   *
+   * @param config the configuration object.
+   */
+  @SneakyThrows
+  public SegmentedLogFile (@NonNull Config config) {
+    this.config = config;
+    pool = BytesPool.builder()
+        .initialBuffersCount(1)
+        .maximumBuffersCount(Integer.MAX_VALUE)
+        .initialBufferSizeBytes(config.getSegment().getBlockBufferSizeBytes())
+        .bufferCreateFunction(Bytes::allocate)
+        .build();
+    lock = new ReentrantReadWriteLock();
+
+    Files.createDirectories(config.getDirectory());
+    segments = new CopyOnWriteArrayList<>(listSegments());
+    if (segments.isEmpty()) {
+      segments.add(segmentPath(0, System.currentTimeMillis()));
+    }
+
+    val activePath = segments.get(segments.size() - 1);
+    active = openSegment(activePath);
+    activeBytes = new AtomicLong(sizeOf(activePath));
+    activeCreatedMillis = createdMillis(activePath);
+    applyRetention0();
+  }
+
+  /**
+   * Returns the segments' directory.
+   *
+   * @return the path to the directory.
+   */
+  public Path directory () {
+    return config.getDirectory();
+  }
+
+  /**
+   * Returns the current segments' paths, from the oldest to the newest one.
+   *
+   * @return the segments' paths.
+   */
+  public List<Path> segments () {
+    return Collections.unmodifiableList(new ArrayList<>(segments));
+  }
+
+  /**
+   * Returns the total size of all the segments in <b>bytes</b>.
+   *
+   * @return the total size, in bytes.
+   */
+  public long size () {
+    long result = 0;
+    for (val segment : segments) {
+      result += sizeOf(segment);
+    }
+    return result;
+  }
+
+  /**
+   * Appends data to the active segment, rolling it to a new one first, if it is needed.
+   * <p>
+   * The method is thread-safe.
+   *
+   * @param buffer the bytes, which need to append to the log.
+   */
+  public void append (@NonNull Bytes buffer) {
+    val length = buffer.readableBytes();
+    lock.readLock().lock();
+    try {
+      if (shouldRoll() == false) {
+        append(buffer, length);
+        return;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (shouldRoll() == true) {
+        roll();
+      }
+      append(buffer, length);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads all records from the oldest segment's beginning.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   */
+  public void load (RecordConsumer consumer) {
+    load(consumer, PRINT_STACK_TRACE_AND_CONTINUE);
+  }
+
+  /**
+   * Reads all records from the oldest segment's beginning.
+   * <p>
+   * The reading iterates over the segments, which exist at the moment of the call.
+   * A segment, which is deleted by the retention policy before its reading, is skipped,
+   * the closed segments are read without creating them.
+   *
+   * @param consumer the client's logic for processing the readed data.
+   *
+   * @param corruptionHandler the corrupted data handler.
+   *
+   * @throws com.xxlabaza.utils.log.file.exception.FileReadException in case of any read errors,
+   *                                                                 except the corruptions - they process
+   *                                                                 with the specified handler
+   */
+  public void load (@NonNull RecordConsumer consumer, @NonNull CorruptionHandler corruptionHandler) {
+    val stopped = new AtomicBoolean(false);
+    RecordConsumer segmentConsumer = (record, position) -> {
+      if (consumer.consume(record, position) == true) {
+        return true;
+      }
+      stopped.set(true);
+      return false;
+    };
+
+    for (val path : segments()) {
+      val current = active;
+      if (current.path().equals(path)) {
+        current.load(segmentConsumer, corruptionHandler);
+      } else if (Files.exists(path)) {
+        try (val segment = openSegment(path)) {
+          segment.loadExisting(segmentConsumer, corruptionHandler);
+        }
+      }
+      if (stopped.get() == true) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Deletes the oldest segments, which are out of the retention policy.
+   * The active segment is never deleted.
+   * <p>
+   * The method is invoked automatically on each roll.
+   */
+  public void applyRetention () {
+    lock.writeLock().lock();
+    try {
+      applyRetention0();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Closes the active segment.
+   */
+  @Override
+  public void close () {
+    lock.writeLock().lock();
+    try {
+      active.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void append (Bytes buffer, int length) {
+    val address = active.append(buffer);
+    activeBytes.accumulateAndGet(address + length, Math::max);
+  }
+
+  private boolean shouldRoll () {
+    if (activeBytes.get() >= config.getMaxSegmentBytes()) {
+      return true;
+    }
+    val maxAge = config.getMaxSegmentAge();
+    return maxAge.isZero() == false
+           && System.currentTimeMillis() - activeCreatedMillis >= maxAge.toMillis();
+  }
+
+  private void roll () {
+    active.close();
+
+    val now = System.currentTimeMillis();
+    val lastPath = segments.get(segments.size() - 1);
+    val nextPath = segmentPath(segmentId(lastPath) + 1, now);
+    segments.add(nextPath);
+    active = openSegment(nextPath);
+    activeBytes.set(0);
+    activeCreatedMillis = now;
+
+    applyRetention0();
+  }
+
+  @SneakyThrows
+  private void applyRetention0 () {
+    val retentionBytes = config.getRetentionBytes();
+    val retentionAge = config.getRetentionAge();
+    val expirationMillis = System.currentTimeMillis() - retentionAge.toMillis();
+
+    long totalBytes = size();
+    while (segments.size() > 1) {
+      val oldest = segments.get(0);
+      val oldestBytes = sizeOf(oldest);
+
+      val isOverSize = retentionBytes > 0 && totalBytes > retentionBytes;
+      val isExpired = retentionAge.isZero() == false
+                      && Files.exists(oldest)
+                      && Files.getLastModifiedTime(oldest).toMillis() < expirationMillis;
+      if (isOverSize == false && isExpired == false) {
+        return;
+      }
+
+      segments.remove(0);
+      Files.deleteIfExists(oldest);
+      Files.deleteIfExists(SequenceIndex.sidecarPath(oldest));
+      Files.deleteIfExists(TimeIndex.sidecarPath(oldest));
+      Files.deleteIfExists(TailRecovery.checkpointPath(oldest));
+      totalBytes -= oldestBytes;
+    }
+  }
+
+  private LogFile openSegment (Path path) {
+    val segmentConfig = config.getSegment().withPath(path);
+    return new LogFile(segmentConfig, pool);
+  }
+
+  @SneakyThrows
+  private List<Path> listSegments () {
+    try (val stream = Files.list(config.getDirectory())) {
+      return stream
+          .filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+          .sorted()
+          .collect(toList());
+    }
+  }
+
+  /**
+   * Returns the segment's path, the name of which holds the segment's sequential identifier
+   * and its creation time, because the file systems do not report the files' creation time reliably.
+   *
+   * @param id the segment's identifier.
+   *
+   * @param createdMillis the segment's creation time, in milliseconds since the epoch.
+   *
+   * @return the segment's path.
+   */
+  private Path segmentPath (long id, long createdMillis) {
+    return config.getDirectory().resolve(String.format("%020d-%d.log", id, createdMillis));
+  }
+
+  private static long segmentId (Path path) {
+    val name = path.getFileName().toString();
+    return Long.parseLong(name.substring(0, SEGMENT_ID_DIGITS));
+  }
+
+  /**
+   * Returns the segment's creation time from its name, or the last modification time
+   * of the segments, named without it.
+   *
+   * @param path the segment's path.
+   *
+   * @return the segment's creation time, in milliseconds since the epoch.
+   */
+  @SneakyThrows
+  private static long createdMillis (Path path) {
+    val name = path.getFileName().toString();
+    if (name.charAt(SEGMENT_ID_DIGITS) == '-') {
+      return Long.parseLong(name.substring(SEGMENT_ID_DIGITS + 1, name.indexOf('.')));
+    }
+    return Files.exists(path)
+           ? Files.getLastModifiedTime(path).toMillis()
+           : System.currentTimeMillis();
+  }
+
+  @SneakyThrows
+  private static long sizeOf (Path path) {
+    return Files.exists(path)
+           ? Files.size(path)
+           : 0;
+  }
+
+  /**
+   * A segmented log's configuration object.
+   */
+  @With
+  @Value
+  @Builder
+  public static class Config {
+
+    /**
+     * The configuration with default settings.
+     */
+    public static final Config DEFAULT = Config.builder().build();
+
+    /**
+     * A path to the segments' directory. The default value is <b>./log</b>.
+     *
+     * @return the path to the directory.
+     */
+    @NonNull
+    @Builder.Default
+    Path directory = Paths.get("./log");
+
+    /**
+     * The segments' settings. The path is ignored, because it is assigned to each segment
+     * individually. The default value is {@link LogFile.Config#DEFAULT}.
+     *
+     * @return the segments' settings.
+     */
+    @NonNull
+    @Builder.Default
+    LogFile.Config segment = LogFile.Config.DEFAULT;
+
+    /**
+     * The segment's size, in bytes, which rolls the log to a new segment.
+     * The default value is <b>64 megabytes</b>.
+     *
+     * @return the maximum segment's size, in bytes.
+     */
+    @NonNull
+    @Builder.Default
+    Long maxSegmentBytes = MEGABYTES.toBytes(64);
+
+    /**
+     * The segment's age, which rolls the log to a new segment. The zero value disables
+     * the age-based rolling. The default value is <b>zero</b>.
+     *
+     * @return the maximum segment's age.
+     */
+    @NonNull
+    @Builder.Default
+    Duration maxSegmentAge = Duration.ZERO;
+
+    /**
+     * The total size of all the segments, in bytes, above which the oldest segments are deleted.
+     * The zero value disables the size-based retention. The default value is <b>zero</b>.
+     *
+     * @return the retention size, in bytes.
+     */
+    @NonNull
+    @Builder.Default
+    Long retentionBytes = 0L;
+
+    /**
+     * The time since the segment's last modification, after which the segment is deleted.
+     * The zero value disables the age-based retention. The default value is <b>zero</b>.
+     *
+     * @return the retention age.
+     */
+    @NonNull
+    @Builder.Default
+    Duration retentionAge = Duration.ZERO;
+  }
+}
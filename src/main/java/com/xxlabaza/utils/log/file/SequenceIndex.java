@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import io.appulse.utils.BytesPool;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * A sparse index of the records' sequence numbers, which is stored in a sidecar file
+ * next to the log file. It keeps the address of every {@code interval}-th record, so
+ * the records with the sequence number {@code N} can be found by reading at most
+ * {@code interval} records, instead of the whole file.
+ * <p>
+ * The sidecar file's header is the interval, the entries are the 8-bytes addresses.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class SequenceIndex extends SparseIndex {
+
+  static final int ENTRY_BYTES = Long.BYTES;
+
+  static Path sidecarPath (Path file) {
+    return file.resolveSibling(file.getFileName() + ".idx");
+  }
+
+  private static int interval (LogFile.Config config) {
+    val interval = config.getSequenceIndex().getInterval();
+    if (interval <= 0) {
+      throw new IllegalArgumentException("sequence index interval must be positive, but it is " + interval);
+    }
+    return interval;
+  }
+
+  int interval;
+
+  @NonFinal
+  long[] addresses;
+
+  @NonFinal
+  long records;
+
+  SequenceIndex (LogFile logFile, LogFile.Config config, BytesPool pool) {
+    super(sidecarPath(config.getPath()), interval(config), ENTRY_BYTES);
+    interval = config.getSequenceIndex().getInterval();
+    addresses = new long[INITIAL_ENTRIES];
+    restore(logFile, config, pool);
+  }
+
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized void add (long address) {
+    if (records % interval == 0) {
+      val entry = entries();
+      addresses = ensureCapacity(addresses, entry);
+      addresses[entry] = address;
+      appendEntry();
+    }
+    records++;
+  }
+
+  /**
+   * Returns the index of the entry, which is the nearest one at or before the sequence number.
+   *
+   * @param sequence the record's sequence number, starting from zero.
+   *
+   * @return the entry's index, or {@code -1} if the index is empty.
+   */
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized int floorEntry (long sequence) {
+    return (int) Math.min(sequence / interval, entries() - 1L);
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized long address (int entry) {
+    return addresses[entry];
+  }
+
+  long sequence (int entry) {
+    return (long) entry * interval;
+  }
+
+  @Override
+  void readEntry (int entry, ByteBuffer buffer) {
+    addresses = ensureCapacity(addresses, entry);
+    addresses[entry] = buffer.getLong();
+  }
+
+  @Override
+  void writeEntry (int entry, ByteBuffer buffer) {
+    buffer.putLong(addresses[entry]);
+  }
+
+  @Override
+  void rewind (int entries) {
+    records = (long) entries * interval;
+  }
+
+  @Override
+  void index (Reader reader, long address) {
+    add(address);
+  }
+}
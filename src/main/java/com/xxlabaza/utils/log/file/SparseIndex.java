@@ -0,0 +1,229 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.appulse.utils.BytesPool;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The base of the sparse indices, which are stored in the sidecar files next to the log file.
+ * <p>
+ * The sidecar file's format is the 4-bytes header value, which must match the index's settings,
+ * followed by the fixed-size entries, each of them begins with a record's address.
+ * The sidecar is not forced to the storage device, because it is caught up with the log file
+ * on open, or rebuilt from scratch, if it is missing or does not match the log file.
+ * The subclasses define only the entries' layout and the lookups.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+abstract class SparseIndex implements AutoCloseable {
+
+  static final int HEADER_BYTES = Integer.BYTES;
+
+  static final int INITIAL_ENTRIES = 16;
+
+  static long[] ensureCapacity (long[] array, int entries) {
+    return entries < array.length
+           ? array
+           : Arrays.copyOf(array, Math.max(INITIAL_ENTRIES, entries * 2));
+  }
+
+  int headerValue;
+
+  int entryBytes;
+
+  FileChannel channel;
+
+  ByteBuffer entryBuffer;
+
+  @NonFinal
+  int entries;
+
+  @SneakyThrows
+  SparseIndex (Path sidecar, int headerValue, int entryBytes) {
+    this.headerValue = headerValue;
+    this.entryBytes = entryBytes;
+    channel = FileChannel.open(sidecar, CREATE, READ, WRITE);
+    entryBuffer = ByteBuffer.allocate(entryBytes);
+  }
+
+  @Override
+  @SneakyThrows
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  public synchronized void close () {
+    channel.close();
+  }
+
+  @SneakyThrows
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized void reset () {
+    entries = 0;
+    rewind(0);
+    channel.truncate(0);
+
+    val buffer = ByteBuffer.allocate(HEADER_BYTES);
+    buffer.putInt(headerValue).flip();
+    channel.write(buffer, 0);
+  }
+
+  /**
+   * Loads the sidecar file and indexes the records, which were appended after it,
+   * or rebuilds the sidecar, if it does not match the log file.
+   *
+   * @param logFile the indexed log file.
+   *
+   * @param config the log file's configuration.
+   *
+   * @param pool the block buffers pool.
+   */
+  final void restore (LogFile logFile, LogFile.Config config, BytesPool pool) {
+    if (load() == false || catchUp(logFile, config, pool) == false) {
+      reset();
+      catchUp(logFile, config, pool);
+    }
+  }
+
+  final int entries () {
+    return entries;
+  }
+
+  /**
+   * Writes the next entry, which the subclass has already put into its arrays, to the sidecar file.
+   */
+  @SneakyThrows
+  final void appendEntry () {
+    entryBuffer.clear();
+    writeEntry(entries, entryBuffer);
+    entryBuffer.flip();
+    channel.write(entryBuffer, HEADER_BYTES + (long) entries * entryBytes);
+    entries++;
+  }
+
+  /**
+   * Reads the entry from the sidecar file's buffer into the subclass' arrays.
+   *
+   * @param entry the entry's index.
+   *
+   * @param buffer the buffer with the entry's bytes.
+   */
+  abstract void readEntry (int entry, ByteBuffer buffer);
+
+  /**
+   * Writes the entry from the subclass' arrays into the sidecar file's buffer.
+   *
+   * @param entry the entry's index.
+   *
+   * @param buffer the buffer for the entry's bytes.
+   */
+  abstract void writeEntry (int entry, ByteBuffer buffer);
+
+  /**
+   * Returns the address of the record, which the entry points to.
+   *
+   * @param entry the entry's index.
+   *
+   * @return the record's address.
+   */
+  abstract long address (int entry);
+
+  /**
+   * Rewinds the subclass' state, as if only the specified number of the first entries were added.
+   *
+   * @param entries the number of the kept entries.
+   */
+  abstract void rewind (int entries);
+
+  /**
+   * Indexes the record, which is met by the catching up reader.
+   *
+   * @param reader the reader, which is positioned at the record.
+   *
+   * @param address the record's address.
+   */
+  abstract void index (Reader reader, long address);
+
+  @SneakyThrows
+  private boolean load () {
+    val size = channel.size();
+    if (size < HEADER_BYTES) {
+      return false;
+    }
+
+    val buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    if (buffer.getInt() != headerValue) {
+      return false;
+    }
+
+    entries = buffer.remaining() / entryBytes;
+    for (int index = 0; index < entries; index++) {
+      readEntry(index, buffer);
+    }
+    return true;
+  }
+
+  /**
+   * Re-reads the log file from the last indexed record and indexes the records, which were
+   * appended without updating the index.
+   *
+   * @return {@code false} if the index does not match the log file.
+   */
+  @SneakyThrows
+  private boolean catchUp (LogFile logFile, LogFile.Config config, BytesPool pool) {
+    val lastEntry = Math.max(0, entries - 1);
+    val from = entries == 0
+               ? Header.BYTES
+               : address(lastEntry);
+
+    entries = lastEntry;
+    rewind(lastEntry);
+    channel.truncate(HEADER_BYTES + (long) lastEntry * entryBytes);
+
+    val builder = Reader.builder()
+        .logFile(logFile)
+        .config(config)
+        .pool(pool);
+
+    try (val reader = builder.build()) {
+      reader.seek(from);
+      reader.readAddresses(address -> {
+        index(reader, address);
+        return true;
+      }, error -> true);
+    }
+    return entries > lastEntry
+           ? address(lastEntry) == from
+           : lastEntry == 0;
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static com.xxlabaza.utils.log.file.Record.Type.FIRST;
+import static com.xxlabaza.utils.log.file.Record.Type.FULL;
+import static com.xxlabaza.utils.log.file.Record.Type.LAST;
+import static com.xxlabaza.utils.log.file.Record.Type.UNDEFINED;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Recovers the log file's tail after a crash in the middle of a write.
+ * <p>
+ * The file is validated from its last block backwards, until a complete record's end is found,
+ * and it is truncated to that end, so the new records are not appended after a torn one.
+ * The blocks before the found end are not read, so the recovery cost depends on the torn
+ * record's size, not on the file's size.
+ * <p>
+ * The optional checkpoint sidecar, named as the log file with the <b>.ckpt</b> suffix, keeps
+ * the file's size after a clean close. The file of the same size is not validated at all.
+ * The checkpoint is deleted on open, so it never outlives the appends after it.
+ */
+final class TailRecovery {
+
+  private static final int CHECKPOINT_BYTES = Long.BYTES * 2;
+
+  static Path checkpointPath (Path file) {
+    return file.resolveSibling(file.getFileName() + ".ckpt");
+  }
+
+  /**
+   * Truncates the file's torn tail, if any.
+   *
+   * @param channel the log file's channel.
+   *
+   * @param header the log file's header.
+   *
+   * @param config the log file's configuration.
+   *
+   * @return the file's size after the recovery.
+   */
+  @SneakyThrows
+  static long recover (FileChannel channel, Header header, LogFile.Config config) {
+    val size = channel.size();
+    if (config.getRecovery().isEnabled() == false) {
+      return size;
+    }
+    val checkpoint = readCheckpoint(checkpointPath(config.getPath()));
+    if (checkpoint == size || size <= Header.BYTES) {
+      return size;
+    }
+
+    val blockBytes = header.getBlockBytes();
+    long end = validEnd(channel, header, size);
+    val blockOffset = (int) ((end - Header.BYTES) % blockBytes);
+    if (blockOffset != 0 && blockBytes - blockOffset <= Record.Header.BYTES) {
+      val padding = ByteBuffer.allocate(blockBytes - blockOffset);
+      while (padding.hasRemaining()) {
+        channel.write(padding, end + padding.position());
+      }
+      end += padding.capacity();
+    }
+    if (end < size) {
+      channel.truncate(end);
+    }
+    return end;
+  }
+
+  /**
+   * Writes the checkpoint with the file's size after a clean close.
+   *
+   * @param file the log file.
+   *
+   * @param size the log file's size, all the bytes of which are forced to the storage device.
+   */
+  @SneakyThrows
+  static void checkpoint (Path file, long size) {
+    val buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+    buffer.putLong(size).putLong(~size).flip();
+    try (val channel = FileChannel.open(checkpointPath(file), CREATE, WRITE, TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+  }
+
+  @SneakyThrows
+  private static long readCheckpoint (Path path) {
+    if (Files.notExists(path)) {
+      return -1;
+    }
+    val buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+    int readed;
+    try (val channel = FileChannel.open(path, READ)) {
+      readed = read(channel, buffer, 0);
+    }
+    Files.delete(path);
+
+    if (readed < CHECKPOINT_BYTES) {
+      return -1;
+    }
+    buffer.flip();
+    val size = buffer.getLong();
+    return buffer.getLong() == ~size
+           ? size
+           : -1;
+  }
+
+  private static long validEnd (FileChannel channel, Header header, long size) {
+    val blockBytes = header.getBlockBytes();
+    val block = ByteBuffer.allocate(blockBytes);
+    long blockPosition = Header.BYTES + (size - Header.BYTES - 1) / blockBytes * blockBytes;
+    while (blockPosition >= Header.BYTES) {
+      block.clear();
+      block.limit((int) Math.min(blockBytes, size - blockPosition));
+      read(channel, block, blockPosition);
+
+      val end = recordsEnd(block, header.checksumType(), blockBytes);
+      if (end >= 0) {
+        return blockPosition + end;
+      }
+      blockPosition -= blockBytes;
+    }
+    return Header.BYTES;
+  }
+
+  @SneakyThrows
+  private static int read (FileChannel channel, ByteBuffer buffer, long position) {
+    while (buffer.hasRemaining()) {
+      val readed = channel.read(buffer, position + buffer.position());
+      if (readed <= 0) {
+        break;
+      }
+    }
+    return buffer.position();
+  }
+
+  /**
+   * Returns the end of the last complete record in the block. The chunks are validated
+   * from the block's start up to the first torn or corrupted one.
+   *
+   * @param block the block's content.
+   *
+   * @param checksumType the records' checksum algorithm.
+   *
+   * @param blockBytes the block's size, in bytes.
+   *
+   * @return the offset after the last complete record, or {@code -1},
+   *         if the block has no records' boundaries.
+   */
+  private static int recordsEnd (ByteBuffer block, ChecksumType checksumType, int blockBytes) {
+    val limit = block.position();
+    int end = -1;
+    int offset = 0;
+    while (true) {
+      if (offset == end && blockBytes - offset <= Record.Header.BYTES && limit == blockBytes) {
+        return blockBytes;
+      }
+      if (limit - offset < Record.Header.BYTES
+          || offset + Record.Header.BYTES + Record.getLength(block, offset, limit) > limit) {
+        return end;
+      }
+
+      Record.Type type;
+      try {
+        type = Record.check(block, offset, limit, checksumType);
+      } catch (RecordCorruptedException ex) {
+        return end;
+      }
+      if (type == UNDEFINED) {
+        return end;
+      }
+
+      if (end < 0 && (type == FIRST || type == FULL)) {
+        end = offset;
+      }
+      offset += Record.Header.BYTES + Record.getLength(block, offset, limit);
+      if (type == FULL || type == LAST) {
+        end = offset;
+      }
+    }
+  }
+
+  private TailRecovery () {
+    throw new UnsupportedOperationException();
+  }
+}
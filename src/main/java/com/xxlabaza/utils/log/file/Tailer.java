@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.xxlabaza.utils.log.file.exception.FileReadException;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * The log file's follower, which reads the file's records to the current end, then waits
+ * for the new appends and delivers them incrementally, without rereading the earlier data.
+ * <p>
+ * The appends, made through the same {@link LogFile} instance, wake the follower immediately
+ * and the follower reads only the completely written records. The appends, made by other
+ * instances or processes, are detected by polling the file's size
+ * every {@link LogFile.Config#getFollowPollInterval() poll interval}.
+ * <p>
+ * The records are delivered from a dedicated thread, until the consumer returns {@code false}
+ * or the follower is closed.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class Tailer implements AutoCloseable {
+
+  LogFile logFile;
+
+  Reader reader;
+
+  RecordConsumer consumer;
+
+  CorruptionHandler corruptionHandler;
+
+  long pollIntervalNanos;
+
+  Thread thread;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  @NonFinal
+  volatile boolean running;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  @NonFinal
+  volatile Throwable failure;
+
+  Tailer (LogFile logFile, Reader reader, RecordConsumer consumer, CorruptionHandler corruptionHandler) {
+    this.logFile = logFile;
+    this.reader = reader;
+    this.consumer = consumer;
+    this.corruptionHandler = corruptionHandler;
+    pollIntervalNanos = logFile.getConfig().getFollowPollInterval().toNanos();
+    running = true;
+
+    thread = new Thread(this::run, "log-file-tailer-" + logFile.path().getFileName());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Tells whether the follower is still delivering the records.
+   *
+   * @return {@code true} if the follower is running, {@code false} if it is closed, stopped
+   *         by the consumer or failed.
+   */
+  public boolean isRunning () {
+    return thread.isAlive();
+  }
+
+  /**
+   * Stops the follower and waits for its thread's termination.
+   *
+   * @throws FileReadException if the follower has failed with a read error.
+   */
+  @Override
+  @SneakyThrows
+  public void close () {
+    running = false;
+    LockSupport.unpark(thread);
+    thread.join();
+
+    if (failure != null) {
+      throw new FileReadException(logFile.path(), "the follower has failed", failure);
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private void run () {
+    try {
+      long address = Header.BYTES;
+      while (running == true) {
+        val appender = logFile.getOpenedAppender();
+        val bound = appender == null
+                    ? Long.MAX_VALUE
+                    : appender.committedPosition();
+
+        address = reader.follow(address, bound, consumer, corruptionHandler);
+        if (address < 0) {
+          return;
+        }
+
+        if (appender == null) {
+          LockSupport.parkNanos(this, pollIntervalNanos);
+        } else {
+          appender.awaitAppend(bound, pollIntervalNanos);
+        }
+      }
+    } catch (Throwable ex) {
+      failure = ex;
+    } finally {
+      reader.close();
+    }
+  }
+}
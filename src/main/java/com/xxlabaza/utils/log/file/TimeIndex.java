@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import io.appulse.utils.BytesPool;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * A sparse index of the records' append timestamps, which is stored in a sidecar file
+ * next to the log file. It keeps one entry per block - the timestamp and the address of
+ * the first record, which starts in the block. The timestamps are monotonic, so a time-range
+ * scan starts from the block, found by a binary search, instead of the file's beginning.
+ * <p>
+ * The sidecar file's header is the block size, the entries are the 8-bytes timestamps,
+ * followed by the 8-bytes addresses.
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class TimeIndex extends SparseIndex {
+
+  static final int ENTRY_BYTES = Long.BYTES + Long.BYTES;
+
+  static Path sidecarPath (Path file) {
+    return file.resolveSibling(file.getFileName() + ".tidx");
+  }
+
+  /**
+   * Opens the time index of the log file, if the file has the records' timestamps.
+   *
+   * @param logFile the indexed log file.
+   *
+   * @param config the log file's configuration.
+   *
+   * @param pool the block buffers pool.
+   *
+   * @return the time index or {@code null}, if the file has no timestamps.
+   */
+  @SneakyThrows
+  static TimeIndex open (LogFile logFile, LogFile.Config config, BytesPool pool) {
+    Header header;
+    try (val channel = FileChannel.open(config.getPath(), CREATE, READ, WRITE)) {
+      header = Header.readOrWrite(channel, config);
+    }
+    return header.hasTimestamps()
+           ? new TimeIndex(logFile, config, pool, header.getBlockBytes())
+           : null;
+  }
+
+  int blockBytes;
+
+  @NonFinal
+  long[] timestamps;
+
+  @NonFinal
+  long[] addresses;
+
+  @NonFinal
+  long lastBlock;
+
+  @NonFinal
+  long lastTimestamp;
+
+  private TimeIndex (LogFile logFile, LogFile.Config config, BytesPool pool, int blockBytes) {
+    super(sidecarPath(config.getPath()), blockBytes, ENTRY_BYTES);
+    this.blockBytes = blockBytes;
+    timestamps = new long[INITIAL_ENTRIES];
+    addresses = new long[INITIAL_ENTRIES];
+    lastBlock = -1;
+    restore(logFile, config, pool);
+  }
+
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized void add (long timestamp, long address) {
+    lastTimestamp = timestamp;
+
+    val block = (address - Header.BYTES) / blockBytes;
+    if (block == lastBlock) {
+      return;
+    }
+    lastBlock = block;
+
+    val entry = entries();
+    timestamps = ensureCapacity(timestamps, entry);
+    addresses = ensureCapacity(addresses, entry);
+    timestamps[entry] = timestamp;
+    addresses[entry] = address;
+    appendEntry();
+  }
+
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized long lastTimestamp () {
+    return lastTimestamp;
+  }
+
+  /**
+   * Returns the address, from which the records with the timestamps
+   * at or after the specified time should be searched.
+   *
+   * @param time the time, in milliseconds since the epoch.
+   *
+   * @return the address of the latest indexed record, which is older than the time,
+   *         or the first record's address.
+   */
+  @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+  synchronized long floorAddress (long time) {
+    int low = 0;
+    int high = entries() - 1;
+    while (low <= high) {
+      val middle = (low + high) >>> 1;
+      if (timestamps[middle] < time) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high >= 0
+           ? addresses[high]
+           : Header.BYTES;
+  }
+
+  @Override
+  long address (int entry) {
+    return addresses[entry];
+  }
+
+  @Override
+  void readEntry (int entry, ByteBuffer buffer) {
+    timestamps = ensureCapacity(timestamps, entry);
+    addresses = ensureCapacity(addresses, entry);
+    timestamps[entry] = buffer.getLong();
+    addresses[entry] = buffer.getLong();
+  }
+
+  @Override
+  void writeEntry (int entry, ByteBuffer buffer) {
+    buffer.putLong(timestamps[entry]).putLong(addresses[entry]);
+  }
+
+  @Override
+  void rewind (int entries) {
+    lastBlock = -1;
+  }
+
+  @Override
+  void index (Reader reader, long address) {
+    add(reader.timestamp(), address);
+  }
+}
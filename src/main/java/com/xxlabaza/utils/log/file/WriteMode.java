@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+/**
+ * The way a log file's blocks are written to the storage device.
+ */
+public enum WriteMode {
+
+  /**
+   * The blocks are written with {@link java.nio.channels.FileChannel} writes.
+   */
+  CHANNEL,
+
+  /**
+   * The file is preallocated and mapped into memory with fixed-size windows ahead of
+   * the write position, the blocks are copied straight into the mapped memory.
+   * The file is truncated to its logical end on close.
+   */
+  MEMORY_MAPPED;
+}
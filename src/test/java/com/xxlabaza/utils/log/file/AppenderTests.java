@@ -16,11 +16,18 @@
 
 package com.xxlabaza.utils.log.file;
 
+import static com.xxlabaza.utils.log.file.Record.Type.FIRST;
+import static com.xxlabaza.utils.log.file.Record.Type.FULL;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
@@ -119,4 +126,108 @@ class AppenderTests {
     assertThat(logFileSize.get())
         .isEqualTo(Header.BYTES + config.getBlockBufferSizeBytes() + config.getBlockBufferSizeBytes());
   }
+
+  @Test
+  void appendAll () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(path)
+        .blockBufferSizeBytes(32)
+        .forceFlush(true)
+        .build();
+
+    val records = new ArrayList<byte[]>();
+    for (int size = 1; size < 100; size += 7) {
+      val body = new byte[size];
+      ThreadLocalRandom.current().nextBytes(body);
+      records.add(body);
+    }
+
+    val expectedFile = Files.createTempFile("log", ".removeme");
+    try {
+      try (val appender = new Appender(config.withPath(expectedFile), pool)) {
+        for (val record : records) {
+          appender.append(Bytes.wrap(record));
+        }
+      }
+
+      long[] positions;
+      try (val appender = new Appender(config, pool)) {
+        val buffers = new ArrayList<Bytes>();
+        for (val record : records) {
+          buffers.add(Bytes.wrap(record));
+        }
+        positions = appender.appendAll(buffers);
+      }
+
+      val bytes = Files.readAllBytes(path);
+      assertThat(bytes).containsExactly(Files.readAllBytes(expectedFile));
+
+      assertThat(positions).hasSize(records.size());
+      assertThat(positions[0]).isEqualTo(Header.BYTES);
+      for (val position : positions) {
+        val type = bytes[(int) position + Record.Header.TYPE_OFFSET];
+        assertThat(type == FULL.getCode() || type == FIRST.getCode()).isTrue();
+      }
+    } finally {
+      Files.delete(expectedFile);
+    }
+  }
+
+  @Test
+  void memoryMappedAppendKeepsFileFormat () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(path)
+        .blockBufferSizeBytes(32)
+        .forceFlush(true)
+        .writeMode(WriteMode.MEMORY_MAPPED)
+        .mappedWindowBytes(64)
+        .build();
+
+    val records = new ArrayList<byte[]>();
+    for (int size = 1; size < 100; size += 9) {
+      val body = new byte[size];
+      ThreadLocalRandom.current().nextBytes(body);
+      records.add(body);
+    }
+
+    val expectedFile = Files.createTempFile("log", ".removeme");
+    try {
+      val channelConfig = config.withPath(expectedFile).withWriteMode(WriteMode.CHANNEL);
+      for (int half = 0; half < 2; half++) {
+        try (val channelAppender = new Appender(channelConfig, pool);
+             val mappedAppender = new Appender(config, pool)) {
+
+          for (val record : records.subList(half * records.size() / 2, (half + 1) * records.size() / 2)) {
+            val expectedPosition = channelAppender.append(Bytes.wrap(record));
+            val position = mappedAppender.append(Bytes.wrap(record));
+            assertThat(position).isEqualTo(expectedPosition);
+          }
+        }
+        assertThat(Files.readAllBytes(path)).containsExactly(Files.readAllBytes(expectedFile));
+      }
+    } finally {
+      Files.delete(expectedFile);
+    }
+  }
+
+  @Test
+  void memoryMappedSinkRetainsOnlyUnforcedWindowsOfForceFlush () throws Exception {
+    val block = new byte[32];
+    ThreadLocalRandom.current().nextBytes(block);
+
+    for (val forceFlush : new boolean[] { false, true }) {
+      try (val sink = new MappedBlockSink(FileChannel.open(path, READ, WRITE), 64, 32, forceFlush)) {
+        sink.truncate(0);
+        for (int index = 0; index < 100; index++) {
+          sink.write(ByteBuffer.wrap(block));
+        }
+        // without the force flush, the retired windows are left to the page cache
+        assertThat(sink.unforcedWindows() > 0).isEqualTo(forceFlush);
+
+        sink.force();
+        assertThat(sink.unforcedWindows()).isZero();
+      }
+      assertThat(Files.size(path)).isEqualTo(100 * 32);
+    }
+  }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.val;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testing latency histogram")
+class LatencyHistogramTests {
+
+  @Test
+  void bucketsCoverAllValues () {
+    int previous = -1;
+    for (long value = 0; value < 100_000; value++) {
+      val index = LatencyHistogram.bucketIndex(value);
+      assertThat(index).isBetween(previous, previous + 1);
+      assertThat(LatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+      previous = index;
+    }
+    assertThat(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)))
+        .isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void percentiles () {
+    val histogram = new LatencyHistogram();
+    for (int value = 1; value <= 10_000; value++) {
+      histogram.record(value);
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(10_000);
+    assertThat(histogram.getMax()).isEqualTo(10_000);
+    assertThat(histogram.getMean()).isEqualTo(5_000.5);
+    assertThat(histogram.getValueAtPercentile(50)).isBetween(5_000L, 5_625L);
+    assertThat(histogram.getValueAtPercentile(99)).isBetween(9_900L, 10_000L);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000);
+
+    histogram.reset();
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getValueAtPercentile(50)).isZero();
+  }
+}
@@ -16,12 +16,36 @@
 
 package com.xxlabaza.utils.log.file;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.xxlabaza.utils.log.file.exception.FileReadException;
 
 import io.appulse.utils.Bytes;
 import lombok.val;
@@ -118,6 +142,33 @@ class LogFileTests {
     }
   }
 
+  @Test
+  void bigOneIsWrittenInBoundedBatches () throws Exception {
+    val metrics = new RecordingLogFileMetrics();
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(true)
+        .metrics(metrics)
+        .build();
+
+    val payload = new byte[64 * 1024];
+    ThreadLocalRandom.current().nextBytes(payload);
+    try (val logFile = new LogFile(config)) {
+      logFile.append(Bytes.wrap(payload));
+
+      val blocks = (Files.size(file) - Header.BYTES + 63) / 64;
+      assertThat(metrics.getWriteLatency().getCount()).isEqualTo((blocks + 63) / 64);
+      assertThat(metrics.getForceLatency().getCount()).isEqualTo(1);
+      assertThat(metrics.getWrittenBytes()).isGreaterThan(payload.length);
+
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertThat(records).hasSize(1);
+      assertThat(records.get(0)).containsExactly(payload);
+    }
+  }
+
   @Test
   void writeAndReadWholeBlock () {
     val config = LogFile.Config.builder()
@@ -143,4 +194,1075 @@ class LogFileTests {
       assertThat(counter.intValue()).isEqualTo(3);
     }
   }
+
+  @Test
+  void concurrentWritesWithGroupCommit () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(true)
+        .groupCommit(LogFile.Config.GroupCommitConfig.builder()
+            .enabled(true)
+            .maxWait(Duration.ofMillis(2))
+            .maxBatchSize(4)
+            .build())
+        .build();
+
+    val threads = 8;
+    val recordsPerThread = 50;
+    val executor = Executors.newFixedThreadPool(threads);
+    try (val logFile = new LogFile(config)) {
+      val payload = new byte[100];
+      ThreadLocalRandom.current().nextBytes(payload);
+
+      val tasks = new ArrayList<Callable<Void>>();
+      for (int thread = 0; thread < threads; thread++) {
+        tasks.add(() -> {
+          for (int count = 0; count < recordsPerThread; count++) {
+            logFile.append(Bytes.wrap(payload));
+          }
+          return null;
+        });
+      }
+      for (val future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+
+      val counter = new AtomicInteger();
+      logFile.load((buffer, position) -> {
+        assertThat(buffer.arrayCopy()).containsExactly(payload);
+        counter.incrementAndGet();
+        return true;
+      });
+
+      assertThat(counter.intValue()).isEqualTo(threads * recordsPerThread);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void groupCommitForcesEveryAppendAfterItsWrite () throws Exception {
+    val forces = new AtomicLong();
+    val forcesAtWrite = new ThreadLocal<Long>();
+    val metrics = new LogFileMetrics() {
+
+      @Override
+      public void onWrite (long bytes, long nanos) {
+        forcesAtWrite.set(forces.get());
+      }
+
+      @Override
+      public void onForce (long nanos) {
+        forces.incrementAndGet();
+      }
+    };
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(true)
+        .metrics(metrics)
+        .groupCommit(LogFile.Config.GroupCommitConfig.builder()
+            .enabled(true)
+            .maxWait(Duration.ofMillis(1))
+            .maxBatchSize(4)
+            .build())
+        .build();
+
+    val threads = 4;
+    val recordsPerThread = 50;
+    val executor = Executors.newFixedThreadPool(threads);
+    try (val logFile = new LogFile(config)) {
+      val tasks = new ArrayList<Callable<Void>>();
+      for (int thread = 0; thread < threads; thread++) {
+        tasks.add(() -> {
+          for (int count = 0; count < recordsPerThread; count++) {
+            logFile.append(Bytes.wrap(new byte[10]));
+            // the force, which made the record durable, completed after the record's write
+            assertThat(forces.get()).isGreaterThan(forcesAtWrite.get());
+          }
+          return null;
+        });
+      }
+      for (val future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void appendAllAndRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(32)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payload = new byte[40];
+      ThreadLocalRandom.current().nextBytes(payload);
+
+      val positions = logFile.appendAll(Bytes.wrap(payload), Bytes.wrap(payload), Bytes.wrap(payload));
+      assertThat(positions).hasSize(3);
+
+      val counter = new AtomicInteger();
+      logFile.load((buffer, position) -> {
+        assertThat(buffer.arrayCopy()).containsExactly(payload);
+        counter.incrementAndGet();
+        return true;
+      });
+
+      assertThat(counter.intValue()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void asyncWritesAndRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .async(LogFile.Config.AsyncConfig.builder()
+            .ringSize(16)
+            .maxBatchSize(8)
+            .build())
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payload = new byte[50];
+      ThreadLocalRandom.current().nextBytes(payload);
+
+      val futures = new ArrayList<CompletableFuture<Long>>();
+      for (int count = 0; count < 100; count++) {
+        futures.add(logFile.appendAsync(Bytes.wrap(payload)));
+      }
+
+      long previousPosition = 0;
+      for (val future : futures) {
+        val position = future.join();
+        assertThat(position).isGreaterThan(previousPosition);
+        previousPosition = position;
+      }
+
+      val counter = new AtomicInteger();
+      logFile.load((buffer, position) -> {
+        assertThat(buffer.arrayCopy()).containsExactly(payload);
+        counter.incrementAndGet();
+        return true;
+      });
+
+      assertThat(counter.intValue()).isEqualTo(100);
+    }
+  }
+
+  @Test
+  void asyncAppendsRacingCloseAreCompleted () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .async(LogFile.Config.AsyncConfig.builder()
+            .ringSize(4)
+            .maxBatchSize(2)
+            .build())
+        .build();
+
+    val futures = new CopyOnWriteArrayList<CompletableFuture<Long>>();
+    val executor = Executors.newFixedThreadPool(4);
+    try {
+      val logFile = new LogFile(config);
+      futures.add(logFile.appendAsync(Bytes.wrap(new byte[] { 1, 2, 3 })));
+      val started = new CountDownLatch(4);
+      for (int thread = 0; thread < 4; thread++) {
+        executor.submit(() -> {
+          started.countDown();
+          for (int index = 0; index < 1000; index++) {
+            futures.add(logFile.appendAsync(Bytes.wrap(new byte[] { 1, 2, 3 })));
+          }
+        });
+      }
+      started.await();
+      logFile.close();
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, SECONDS)).isTrue();
+
+      for (val future : futures) {
+        try {
+          future.get(10, SECONDS);
+        } catch (ExecutionException ex) {
+          assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void memoryMappedRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(32)
+        .forceFlush(false)
+        .readMode(ReadMode.MEMORY_MAPPED)
+        .mappedWindowBytes(100)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payloads = new ArrayList<byte[]>();
+      for (int size = 1; size < 150; size += 13) {
+        val payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        logFile.append(Bytes.wrap(payload));
+      }
+
+      val counter = new AtomicInteger();
+      logFile.load((buffer, position) -> {
+        assertThat(buffer.arrayCopy()).containsExactly(payloads.get(counter.getAndIncrement()));
+        return true;
+      });
+
+      assertThat(counter.intValue()).isEqualTo(payloads.size());
+    }
+  }
+
+  @Test
+  void pipelinedRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .readMode(ReadMode.PIPELINED)
+        .prefetch(LogFile.Config.PrefetchConfig.builder()
+            .readAheadBytes(200)
+            .buffers(2)
+            .build())
+        .build();
+
+    val payloads = new ArrayList<byte[]>();
+    val addresses = new ArrayList<Long>();
+    try (val logFile = new LogFile(config)) {
+      for (int index = 0; index < 300; index++) {
+        val payload = new byte[index % 130];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        addresses.add(logFile.append(Bytes.wrap(payload)));
+      }
+
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+
+      val first = new ArrayList<byte[]>();
+      logFile.load((record, position) -> first.add(record.arrayCopy()) && first.size() < 10);
+      assertRecords(first, payloads.subList(0, 10));
+
+      for (int index = 0; index < addresses.size(); index += 17) {
+        assertThat(logFile.read(addresses.get(index)).arrayCopy()).containsExactly(payloads.get(index));
+      }
+    }
+  }
+
+  @Test
+  void zeroCopyRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payloads = new ArrayList<byte[]>();
+      for (int size = 1; size < 200; size += 17) {
+        val payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        logFile.append(Bytes.wrap(payload));
+      }
+
+      val counter = new AtomicInteger();
+      logFile.loadViews((view, position) -> {
+        assertThat(view.isReadOnly()).isTrue();
+
+        val bytes = new byte[view.remaining()];
+        view.get(bytes);
+        assertThat(bytes).containsExactly(payloads.get(counter.getAndIncrement()));
+        return true;
+      });
+
+      assertThat(counter.intValue()).isEqualTo(payloads.size());
+    }
+  }
+
+  @Test
+  void randomAccessRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payloads = new ArrayList<byte[]>();
+      val addresses = new ArrayList<Long>();
+      for (int size = 0; size < 300; size += 13) {
+        val payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        addresses.add(logFile.append(Bytes.wrap(payload)));
+      }
+
+      for (int index = payloads.size() - 1; index >= 0; index--) {
+        val record = logFile.read(addresses.get(index));
+        assertThat(record.arrayCopy()).containsExactly(payloads.get(index));
+      }
+
+      assertThatThrownBy(() -> logFile.read(logFile.size() + 1))
+          .isInstanceOf(FileReadException.class);
+      assertThatThrownBy(() -> logFile.read(logFile.size() - 2))
+          .isInstanceOf(FileReadException.class);
+      assertThatThrownBy(() -> logFile.read(0))
+          .isInstanceOf(FileReadException.class);
+    }
+  }
+
+  @Test
+  void paginatedReadWithSequenceIndex () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .sequenceIndex(LogFile.Config.SequenceIndexConfig.builder()
+            .enabled(true)
+            .interval(8)
+            .build())
+        .build();
+
+    val sidecar = SequenceIndex.sidecarPath(file);
+    try {
+      val payloads = new ArrayList<byte[]>();
+      try (val logFile = new LogFile(config)) {
+        for (int index = 0; index < 100; index++) {
+          val payload = new byte[index % 90];
+          ThreadLocalRandom.current().nextBytes(payload);
+          payloads.add(payload);
+          logFile.append(Bytes.wrap(payload));
+        }
+        assertPage(logFile, payloads, 0, 10);
+        assertPage(logFile, payloads, 37, 20);
+        assertPage(logFile, payloads, 95, 20);
+      }
+
+      // the sidecar is stale (the latest records are missing) and then it is missing at all
+      try (val logFile = new LogFile(config.withSequenceIndex(LogFile.Config.SequenceIndexConfig.DEFAULT))) {
+        for (int index = 0; index < 20; index++) {
+          val payload = new byte[] { (byte) index };
+          payloads.add(payload);
+          logFile.append(Bytes.wrap(payload));
+        }
+      }
+      try (val logFile = new LogFile(config)) {
+        assertPage(logFile, payloads, 97, 10);
+      }
+      Files.delete(sidecar);
+      try (val logFile = new LogFile(config)) {
+        assertPage(logFile, payloads, 64, 56);
+      }
+    } finally {
+      Files.deleteIfExists(sidecar);
+    }
+  }
+
+  @Test
+  void timeRangeRead () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .timestamps(true)
+        .build();
+
+    val sidecar = TimeIndex.sidecarPath(file);
+    try {
+      val payloads = new ArrayList<byte[]>();
+      val addresses = new ArrayList<Long>();
+      val bounds = new ArrayList<Instant>();
+      try (val logFile = new LogFile(config)) {
+        for (int batch = 0; batch < 3; batch++) {
+          Thread.sleep(5);
+          bounds.add(Instant.now());
+          Thread.sleep(5);
+          for (int index = 0; index < 30; index++) {
+            val payload = new byte[(batch * 30 + index) % 100];
+            ThreadLocalRandom.current().nextBytes(payload);
+            payloads.add(payload);
+            addresses.add(logFile.append(Bytes.wrap(payload)));
+          }
+        }
+
+        val all = new ArrayList<byte[]>();
+        logFile.load((record, position) -> all.add(record.arrayCopy()));
+        assertRecords(all, payloads);
+
+        val views = new ArrayList<byte[]>();
+        logFile.loadViews((view, position) -> {
+          val bytes = new byte[view.remaining()];
+          view.get(bytes);
+          return views.add(bytes);
+        });
+        assertRecords(views, payloads);
+
+        assertThat(logFile.read(addresses.get(42)).arrayCopy()).containsExactly(payloads.get(42));
+      }
+
+      try (val logFile = new LogFile(config)) {
+        val range = new ArrayList<byte[]>();
+        logFile.load((record, position) -> range.add(record.arrayCopy()), bounds.get(1), bounds.get(2));
+        assertRecords(range, payloads.subList(30, 60));
+      }
+    } finally {
+      Files.deleteIfExists(sidecar);
+    }
+  }
+
+  @Test
+  void followReadsNewRecords () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .followPollInterval(Duration.ofMillis(10))
+        .build();
+
+    val payloads = new ArrayList<byte[]>();
+    val records = new CopyOnWriteArrayList<byte[]>();
+    try (val logFile = new LogFile(config);
+         val tailer = logFile.follow((record, position) -> records.add(record.arrayCopy()))) {
+
+      // the appends from another instance are found by polling
+      try (val writer = new LogFile(config)) {
+        for (int index = 0; index < 20; index++) {
+          val payload = new byte[index * 7];
+          ThreadLocalRandom.current().nextBytes(payload);
+          payloads.add(payload);
+          writer.append(Bytes.wrap(payload));
+        }
+      }
+      awaitSize(records, payloads.size());
+
+      // the own appends wake the follower up
+      for (int index = 0; index < 20; index++) {
+        val payload = new byte[150 - index * 7];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        logFile.append(Bytes.wrap(payload));
+      }
+      awaitSize(records, payloads.size());
+
+      assertThat(tailer.isRunning()).isTrue();
+    }
+    assertRecords(records, payloads);
+  }
+
+  @Test
+  void pipelinedFollowOfMappedWrites () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .followPollInterval(Duration.ofMillis(10))
+        .writeMode(WriteMode.MEMORY_MAPPED)
+        .mappedWindowBytes(64 * 1024)
+        .readMode(ReadMode.PIPELINED)
+        .prefetch(LogFile.Config.PrefetchConfig.builder()
+            .readAheadBytes(256)
+            .buffers(2)
+            .build())
+        .build();
+
+    val payloads = new ArrayList<byte[]>();
+    val records = new CopyOnWriteArrayList<byte[]>();
+    try (val logFile = new LogFile(config);
+         val tailer = logFile.follow((record, position) -> records.add(record.arrayCopy()))) {
+
+      for (int batch = 0; batch < 5; batch++) {
+        for (int index = 0; index < 10; index++) {
+          val payload = new byte[index * 11 + 1];
+          ThreadLocalRandom.current().nextBytes(payload);
+          payloads.add(payload);
+          logFile.append(Bytes.wrap(payload));
+        }
+        awaitSize(records, payloads.size());
+      }
+      assertThat(tailer.isRunning()).isTrue();
+    }
+    assertRecords(records, payloads);
+  }
+
+  @Test
+  void followWaitsForPartiallyWrittenChunk () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(256)
+        .forceFlush(false)
+        .followPollInterval(Duration.ofMillis(10))
+        .build();
+
+    val payload = new byte[100];
+    ThreadLocalRandom.current().nextBytes(payload);
+
+    val other = Files.createTempFile("test", ".removeme");
+    try {
+      try (val writer = new LogFile(config.withPath(other))) {
+        writer.append(Bytes.wrap(payload));
+      }
+      val bytes = Files.readAllBytes(other);
+      val chunk = ByteBuffer.wrap(bytes, Header.BYTES, bytes.length - Header.BYTES).slice();
+
+      val records = new CopyOnWriteArrayList<byte[]>();
+      val corruptions = new AtomicInteger();
+      try (val logFile = new LogFile(config);
+           val tailer = logFile.follow(
+               (record, position) -> records.add(record.arrayCopy()),
+               error -> corruptions.incrementAndGet() > 0
+           );
+           val channel = FileChannel.open(file, WRITE, APPEND)) {
+
+        // another process has written the chunk's header, but not the whole body
+        chunk.limit(chunk.capacity() / 2);
+        channel.write(chunk);
+        SECONDS.sleep(1);
+        assertThat(records).isEmpty();
+
+        chunk.limit(chunk.capacity());
+        channel.write(chunk);
+        awaitSize(records, 1);
+
+        assertThat(tailer.isRunning()).isTrue();
+      }
+      assertThat(corruptions.get()).isZero();
+      assertRecords(records, Collections.singletonList(payload));
+    } finally {
+      Files.deleteIfExists(other);
+    }
+  }
+
+  @Test
+  void loadIsNotInterruptedByConcurrentAppends () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      logFile.append(Bytes.allocate(4).write4B(0));
+
+      val executor = Executors.newSingleThreadExecutor();
+      Callable<Integer> writer = () -> {
+        for (int index = 1; index < 3_000; index++) {
+          val record = Bytes.allocate(4 + index % 150);
+          record.write4B(index);
+          record.writeNB(new byte[index % 150]);
+          logFile.append(record);
+        }
+        return 3_000;
+      };
+      try {
+        val future = executor.submit(writer);
+
+        int previousCount = 0;
+        while (future.isDone() == false) {
+          val counter = new AtomicInteger();
+          logFile.load((record, position) -> {
+            assertThat(record.readInt()).isEqualTo(counter.getAndIncrement());
+            return true;
+          });
+          assertThat(counter.intValue()).isGreaterThanOrEqualTo(previousCount);
+          previousCount = counter.intValue();
+        }
+        assertThat(future.get()).isEqualTo(3_000);
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Test
+  void parallelRecordsStream () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payloads = new ArrayList<byte[]>();
+      for (int index = 0; index < 2_000; index++) {
+        val payload = new byte[index % 7 == 0 ? 300 : index % 60];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+      }
+      logFile.appendAll(payloads.stream().map(Bytes::wrap).collect(toList()));
+
+      try (val stream = logFile.records()) {
+        val records = stream.map(Bytes::arrayCopy).collect(toList());
+        assertRecords(records, payloads);
+      }
+      try (val stream = logFile.records()) {
+        assertThat(stream.isParallel()).isTrue();
+        assertThat(stream.count()).isEqualTo((long) payloads.size());
+      }
+    }
+  }
+
+  @Test
+  void reverseRead () {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val payloads = new ArrayList<byte[]>();
+      val addresses = new ArrayList<Long>();
+      for (int index = 0; index < 300; index++) {
+        val payload = new byte[index % 11 == 0 ? 200 : index % 50];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payloads.add(payload);
+        addresses.add(logFile.append(Bytes.wrap(payload)));
+      }
+
+      val records = new ArrayList<byte[]>();
+      logFile.loadReverse((record, position) -> {
+        assertThat(position).isEqualTo(addresses.get(payloads.size() - 1 - records.size()));
+        records.add(record.arrayCopy());
+        return true;
+      });
+      Collections.reverse(records);
+      assertRecords(records, payloads);
+
+      val last = new ArrayList<byte[]>();
+      logFile.loadReverse((record, position) -> last.add(record.arrayCopy()) && last.size() < 50);
+      Collections.reverse(last);
+      assertRecords(last, payloads.subList(250, 300));
+    }
+  }
+
+  @Test
+  void compressedWriteAndRead () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(128)
+        .forceFlush(false)
+        .timestamps(true)
+        .compression(LogFile.Config.CompressionConfig.builder()
+            .enabled(true)
+            .codec(new DeflateCodec(6))
+            .build())
+        .build();
+
+    val sidecar = TimeIndex.sidecarPath(file);
+    try {
+      val payloads = new ArrayList<byte[]>();
+      val addresses = new ArrayList<Long>();
+      int rawBytes = 0;
+      try (val logFile = new LogFile(config)) {
+        for (int index = 0; index < 200; index++) {
+          byte[] payload;
+          if (index % 5 == 0) {
+            payload = new byte[index % 40];
+            ThreadLocalRandom.current().nextBytes(payload);
+          } else {
+            val json = new StringBuilder();
+            for (int field = 0; field < index % 30 + 1; field++) {
+              json.append("{\"id\":").append(index).append(",\"name\":\"record\"},");
+            }
+            payload = json.toString().getBytes(UTF_8);
+          }
+          rawBytes += payload.length;
+          payloads.add(payload);
+          addresses.add(logFile.append(Bytes.wrap(payload)));
+        }
+      }
+      assertThat(Files.size(file)).isLessThan(rawBytes);
+
+      try (val logFile = new LogFile(config)) {
+        val records = new ArrayList<byte[]>();
+        logFile.load((record, position) -> records.add(record.arrayCopy()));
+        assertRecords(records, payloads);
+
+        val views = new ArrayList<byte[]>();
+        logFile.loadViews((view, position) -> {
+          val bytes = new byte[view.remaining()];
+          view.get(bytes);
+          return views.add(bytes);
+        });
+        assertRecords(views, payloads);
+
+        for (int index = 0; index < payloads.size(); index += 7) {
+          assertThat(logFile.read(addresses.get(index)).arrayCopy()).containsExactly(payloads.get(index));
+        }
+
+        try (val stream = logFile.records()) {
+          assertRecords(stream.map(Bytes::arrayCopy).collect(toList()), payloads);
+        }
+
+        val reversed = new ArrayList<byte[]>();
+        logFile.loadReverse((record, position) -> reversed.add(record.arrayCopy()));
+        Collections.reverse(reversed);
+        assertRecords(reversed, payloads);
+      }
+    } finally {
+      Files.deleteIfExists(sidecar);
+    }
+  }
+
+  @Test
+  void checksumTypeIsKeptInHeader () {
+    assumeTrue(ChecksumType.CRC32C.isSupported());
+
+    val payloads = new ArrayList<byte[]>();
+    for (int index = 0; index < 100; index++) {
+      val payload = new byte[index % 90];
+      ThreadLocalRandom.current().nextBytes(payload);
+      payloads.add(payload);
+    }
+
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .checksum(ChecksumType.CRC32C)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      payloads.forEach(it -> logFile.append(Bytes.wrap(it)));
+    }
+
+    try (val logFile = new LogFile(config.withChecksum(ChecksumType.CRC32))) {
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+    }
+  }
+
+  @Test
+  void directBuffersWriteAndRead () {
+    val payloads = new ArrayList<byte[]>();
+    for (int index = 0; index < 150; index++) {
+      val payload = new byte[index % 10 == 0
+                             ? 300 + index
+                             : index % 50];
+      ThreadLocalRandom.current().nextBytes(payload);
+      payloads.add(payload);
+    }
+
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(128)
+        .forceFlush(false)
+        .directBuffers(true)
+        .build();
+
+    val addresses = new ArrayList<Long>();
+    try (val logFile = new LogFile(config)) {
+      payloads.subList(0, 100).forEach(it -> addresses.add(logFile.append(Bytes.wrap(it))));
+      logFile.appendAll(payloads.subList(100, payloads.size()).stream()
+          .map(Bytes::wrap)
+          .collect(toList()));
+    }
+
+    try (val logFile = new LogFile(config)) {
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+
+      val views = new ArrayList<byte[]>();
+      logFile.loadViews((view, position) -> {
+        val bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return views.add(bytes);
+      });
+      assertRecords(views, payloads);
+
+      for (int index = 0; index < addresses.size(); index += 9) {
+        assertThat(logFile.read(addresses.get(index)).arrayCopy()).containsExactly(payloads.get(index));
+      }
+
+      try (val stream = logFile.records()) {
+        assertRecords(stream.map(Bytes::arrayCopy).collect(toList()), payloads);
+      }
+
+      val reversed = new ArrayList<byte[]>();
+      logFile.loadReverse((record, position) -> reversed.add(record.arrayCopy()));
+      Collections.reverse(reversed);
+      assertRecords(reversed, payloads);
+    }
+
+    try (val logFile = new LogFile(config.withDirectBuffers(false))) {
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+    }
+  }
+
+  @Test
+  void loadDoesNotAllocatePerRecord () {
+    val threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(256)
+        .forceFlush(false)
+        .build();
+
+    try (val logFile = new LogFile(config)) {
+      val records = 100_000;
+      val payload = new byte[24];
+      for (int index = 0; index < records; index++) {
+        logFile.append(Bytes.wrap(payload));
+      }
+
+      val counter = new long[1];
+      RecordConsumer consumer = (record, position) -> {
+        counter[0] += record.readableBytes();
+        return true;
+      };
+      for (int warmUp = 0; warmUp < 10; warmUp++) {
+        logFile.load(consumer);
+      }
+
+      val threadId = Thread.currentThread().getId();
+      val before = threads.getThreadAllocatedBytes(threadId);
+      logFile.load(consumer);
+      val allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+      // a constant cost of opening the reader is fine, any per-record garbage is not
+      assertThat(allocated).isLessThan(records);
+      assertThat(counter[0]).isEqualTo(11L * records * payload.length);
+    }
+  }
+
+  @Test
+  void metricsAreReported () throws Exception {
+    val metrics = new RecordingLogFileMetrics();
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(true)
+        .metrics(metrics)
+        .build();
+
+    long bytes = 0;
+    try (val logFile = new LogFile(config)) {
+      for (int index = 0; index < 100; index++) {
+        val payload = new byte[index % 70];
+        bytes += payload.length;
+        logFile.append(Bytes.wrap(payload));
+      }
+
+      val counter = new AtomicInteger();
+      logFile.load((record, position) -> counter.incrementAndGet() > 0);
+      assertThat(counter.get()).isEqualTo(100);
+    }
+
+    assertThat(metrics.getAppendedRecords()).isEqualTo(100);
+    assertThat(metrics.getAppendedBytes()).isEqualTo(bytes);
+    assertThat(metrics.getAppendLatency().getCount()).isEqualTo(100);
+    assertThat(metrics.getWrittenBytes()).isEqualTo(Files.size(file) - Header.BYTES);
+    assertThat(metrics.getForceLatency().getCount()).isGreaterThanOrEqualTo(100);
+    assertThat(metrics.getLoadedBlocks()).isEqualTo((Files.size(file) - Header.BYTES + 63) / 64);
+    assertThat(metrics.getDecodedRecords()).isEqualTo(100);
+    assertThat(metrics.getCorruptions()).isZero();
+  }
+
+  @Test
+  void tornTailIsTruncatedOnOpen () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .build();
+
+    val payloads = new ArrayList<byte[]>();
+    for (int index = 0; index < 20; index++) {
+      val payload = new byte[index * 3];
+      ThreadLocalRandom.current().nextBytes(payload);
+      payloads.add(payload);
+    }
+    val torn = new byte[200];
+    ThreadLocalRandom.current().nextBytes(torn);
+
+    long validSize;
+    try (val logFile = new LogFile(config)) {
+      payloads.forEach(it -> logFile.append(Bytes.wrap(it)));
+      validSize = logFile.size();
+      logFile.append(Bytes.wrap(torn));
+    }
+    try (val channel = FileChannel.open(file, WRITE)) {
+      channel.truncate(validSize + 100);
+    }
+
+    val appended = new byte[] { 1, 2, 3 };
+    payloads.add(appended);
+    try (val logFile = new LogFile(config)) {
+      logFile.append(Bytes.wrap(appended));
+
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+    }
+
+    val garbage = new byte[30];
+    ThreadLocalRandom.current().nextBytes(garbage);
+    try (val channel = FileChannel.open(file, WRITE, APPEND)) {
+      channel.write(ByteBuffer.wrap(garbage));
+    }
+
+    try (val logFile = new LogFile(config)) {
+      logFile.append(Bytes.wrap(appended));
+      payloads.add(appended);
+
+      val records = new ArrayList<byte[]>();
+      logFile.load((record, position) -> records.add(record.arrayCopy()));
+      assertRecords(records, payloads);
+    }
+  }
+
+  @Test
+  void tornTailIsTruncatedBeforeIndicesOpen () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .timestamps(true)
+        .sequenceIndex(LogFile.Config.SequenceIndexConfig.builder()
+            .enabled(true)
+            .interval(4)
+            .build())
+        .build();
+
+    val payloads = new ArrayList<byte[]>();
+    for (int index = 0; index < 20; index++) {
+      val payload = new byte[index * 3];
+      ThreadLocalRandom.current().nextBytes(payload);
+      payloads.add(payload);
+    }
+
+    try {
+      long validSize;
+      try (val logFile = new LogFile(config)) {
+        payloads.forEach(it -> logFile.append(Bytes.wrap(it)));
+        validSize = logFile.size();
+        logFile.append(Bytes.wrap(new byte[200]));
+      }
+      // the torn multi-block record's FIRST chunk has no continuation
+      try (val channel = FileChannel.open(file, WRITE)) {
+        channel.truncate(validSize + 100);
+      }
+
+      val appended = new byte[] { 1, 2, 3 };
+      payloads.add(appended);
+      try (val logFile = new LogFile(config)) {
+        logFile.append(Bytes.wrap(appended));
+
+        val records = new ArrayList<byte[]>();
+        logFile.load((record, position) -> records.add(record.arrayCopy()));
+        assertRecords(records, payloads);
+      }
+    } finally {
+      Files.deleteIfExists(SequenceIndex.sidecarPath(file));
+      Files.deleteIfExists(TimeIndex.sidecarPath(file));
+    }
+  }
+
+  @Test
+  void checkpointIsWrittenOnClose () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .recovery(LogFile.Config.RecoveryConfig.builder()
+            .checkpoint(true)
+            .build())
+        .build();
+
+    val checkpoint = TailRecovery.checkpointPath(file);
+    try {
+      try (val logFile = new LogFile(config)) {
+        logFile.append(Bytes.wrap(new byte[] { 1, 2, 3 }));
+      }
+      assertThat(Files.exists(checkpoint)).isTrue();
+
+      try (val logFile = new LogFile(config)) {
+        logFile.append(Bytes.wrap(new byte[] { 4, 5 }));
+        assertThat(Files.exists(checkpoint)).isFalse();
+
+        val counter = new AtomicInteger();
+        logFile.load((record, position) -> counter.incrementAndGet() > 0);
+        assertThat(counter.get()).isEqualTo(2);
+      }
+      assertThat(Files.exists(checkpoint)).isTrue();
+    } finally {
+      Files.deleteIfExists(checkpoint);
+    }
+  }
+
+  @Test
+  void checkpointIsKeptWithDisabledRecovery () throws Exception {
+    val config = LogFile.Config.builder()
+        .path(file)
+        .blockBufferSizeBytes(64)
+        .forceFlush(false)
+        .recovery(LogFile.Config.RecoveryConfig.builder()
+            .checkpoint(true)
+            .build())
+        .build();
+
+    val checkpoint = TailRecovery.checkpointPath(file);
+    try {
+      try (val logFile = new LogFile(config)) {
+        logFile.append(Bytes.wrap(new byte[] { 1, 2, 3 }));
+      }
+      assertThat(Files.exists(checkpoint)).isTrue();
+
+      val disabled = config.withRecovery(LogFile.Config.RecoveryConfig.builder()
+          .enabled(false)
+          .build());
+      try (val logFile = new LogFile(disabled)) {
+        logFile.append(Bytes.wrap(new byte[] { 4, 5 }));
+      }
+      assertThat(Files.exists(checkpoint)).isTrue();
+    } finally {
+      Files.deleteIfExists(checkpoint);
+    }
+  }
+
+  private void awaitSize (List<?> list, int size) throws InterruptedException {
+    val deadline = System.currentTimeMillis() + 5_000;
+    while (list.size() < size && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(list).hasSize(size);
+  }
+
+  private void assertRecords (List<byte[]> records, List<byte[]> expected) {
+    assertThat(records).hasSize(expected.size());
+    for (int index = 0; index < expected.size(); index++) {
+      assertThat(records.get(index)).containsExactly(expected.get(index));
+    }
+  }
+
+  private void assertPage (LogFile logFile, List<byte[]> payloads, int fromSequence, int limit) {
+    val records = new ArrayList<byte[]>();
+    logFile.load((record, position) -> records.add(record.arrayCopy()), fromSequence, limit);
+
+    val expected = payloads.subList(fromSequence, Math.min(payloads.size(), fromSequence + limit));
+    assertRecords(records, expected);
+  }
 }
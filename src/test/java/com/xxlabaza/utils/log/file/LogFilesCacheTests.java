@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.appulse.utils.Bytes;
+import lombok.val;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testing opened log files cache")
+class LogFilesCacheTests {
+
+  Path directory;
+
+  LogFilesCache cache;
+
+  @BeforeEach
+  void beforeEach () throws Exception {
+    directory = Files.createTempDirectory("log-files");
+    val lock = new ReentrantLock();
+    cache = new LogFilesCache(1, this::createLogFile, path -> lock);
+  }
+
+  @AfterEach
+  void afterEach () throws Exception {
+    cache.close();
+    try (val files = Files.walk(directory)) {
+      val paths = new ArrayList<Path>();
+      files.sorted(Comparator.reverseOrder()).forEach(paths::add);
+      for (val path : paths) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void hitsAndMisses () {
+    val path = Paths.get("file.log");
+
+    cache.acquire(path).release();
+    cache.acquire(path).release();
+    cache.acquire(path).release();
+
+    val stats = cache.stats();
+    assertThat(stats.getMisses()).isEqualTo(1L);
+    assertThat(stats.getHits()).isEqualTo(2L);
+    assertThat(stats.getEvictions()).isEqualTo(0L);
+  }
+
+  @Test
+  void evictionDefersCloseUntilRelease () {
+    val first = cache.acquire(Paths.get("first.log"));
+    cache.acquire(Paths.get("second.log")).release();
+
+    cache.evictExcess();
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.stats().getEvictions()).isEqualTo(1L);
+    assertThat(first.isClosed()).isFalse();
+
+    first.getLogFile().append(Bytes.wrap(new byte[] { 1, 2, 3 }));
+
+    first.release();
+    assertThat(first.isClosed()).isTrue();
+  }
+
+  @Test
+  void referencedEntriesGetSecondChance () {
+    val first = Paths.get("first.log");
+    cache.acquire(first).release();
+    cache.acquire(first).release();
+
+    val second = cache.acquire(Paths.get("second.log"));
+    second.release();
+
+    cache.evictExcess();
+    assertThat(second.isClosed()).isTrue();
+
+    val entry = cache.acquire(first);
+    assertThat(entry.isClosed()).isFalse();
+    entry.release();
+  }
+
+  private LogFile createLogFile (Path path) {
+    val config = LogFile.Config.builder()
+        .path(directory.resolve(path))
+        .forceFlush(false)
+        .build();
+    return new LogFile(config);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.appulse.utils.Bytes;
+import lombok.Cleanup;
+import lombok.val;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testing log files manager")
+class LogFilesManagerTests {
+
+  Path directory;
+
+  ExecutorService executor;
+
+  @BeforeEach
+  void beforeEach () throws Exception {
+    directory = Files.createTempDirectory("log-files");
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void afterEach () throws Exception {
+    executor.shutdownNow();
+    try (val files = Files.walk(directory)) {
+      val paths = new ArrayList<Path>();
+      files.sorted(Comparator.reverseOrder()).forEach(paths::add);
+      for (val path : paths) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void appendsToDifferentPathsRunInParallel () throws Exception {
+    @Cleanup
+    val manager = new LogFilesManager(LogFilesManager.Config.builder()
+        .directory(directory)
+        .build());
+
+    val first = Paths.get("first.log");
+    Path second = null;
+    for (int index = 0; second == null; index++) {
+      val candidate = Paths.get("second-" + index + ".log");
+      if (manager.lockFor(candidate) != manager.lockFor(first)) {
+        second = candidate;
+      }
+    }
+    val secondPath = second;
+
+    val firstLock = manager.lockFor(first);
+    firstLock.lock();
+    val sameStripe = executor.submit(() -> {
+      manager.append(first, Bytes.wrap(new byte[] { 1 }));
+    });
+    try {
+      val otherStripe = executor.submit(() -> {
+        manager.append(secondPath, Bytes.wrap(new byte[] { 2 }));
+      });
+      otherStripe.get(5, SECONDS);
+      assertThrows(TimeoutException.class, () -> sameStripe.get(200, MILLISECONDS));
+    } finally {
+      firstLock.unlock();
+    }
+    sameStripe.get(5, SECONDS);
+  }
+
+  @Test
+  void concurrentAppendsToManyPaths () throws Exception {
+    val threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    val recordsPerThread = 100;
+
+    @Cleanup
+    val manager = new LogFilesManager(LogFilesManager.Config.builder()
+        .directory(directory)
+        .permits(LogFilesManager.Config.PermitsConfig.builder()
+            .write(threads / 2)
+            .build())
+        .build());
+
+    val payload = new byte[128];
+    ThreadLocalRandom.current().nextBytes(payload);
+
+    append(manager, threads, recordsPerThread, payload);
+
+    for (int thread = 0; thread < threads; thread++) {
+      val counter = new AtomicInteger();
+      manager.load(Paths.get("file-" + thread + ".log"), (buffer, position) -> {
+        assertThat(buffer.arrayCopy()).containsExactly(payload);
+        counter.incrementAndGet();
+        return true;
+      });
+      assertThat(counter.intValue()).isEqualTo(recordsPerThread);
+    }
+
+    val stats = manager.getCacheStats();
+    assertThat(stats.getHits() + stats.getMisses()).isEqualTo(threads * (recordsPerThread + 1L));
+    assertThat(stats.getEvictions()).isGreaterThan(0L);
+  }
+
+  @Test
+  void loadIsNotInterruptedByConcurrentAppends () throws Exception {
+    @Cleanup
+    val manager = new LogFilesManager(LogFilesManager.Config.builder()
+        .directory(directory)
+        .commonConfig(LogFile.Config.builder()
+            .blockBufferSizeBytes(64)
+            .forceFlush(false)
+            .build())
+        .build());
+
+    val path = Paths.get("file.log");
+    manager.append(path, Bytes.allocate(4).write4B(0));
+
+    val future = executor.submit(() -> {
+      for (int index = 1; index < 3_000; index++) {
+        // the big records are written with several gathering writes
+        val size = index % 10 == 0
+                   ? 10_000
+                   : index % 150;
+        val record = Bytes.allocate(4 + size);
+        record.write4B(index);
+        record.writeNB(new byte[size]);
+        manager.append(path, record);
+      }
+      return 3_000;
+    });
+
+    int previousCount = 0;
+    while (future.isDone() == false) {
+      val counter = new AtomicInteger();
+      manager.load(path, (record, position) -> {
+        assertThat(record.readInt()).isEqualTo(counter.getAndIncrement());
+        return true;
+      }, error -> {
+        throw error;
+      });
+      assertThat(counter.intValue()).isGreaterThanOrEqualTo(previousCount);
+      previousCount = counter.intValue();
+    }
+    assertThat(future.get()).isEqualTo(3_000);
+  }
+
+  private void append (LogFilesManager manager, int threads, int recordsPerThread, byte[] payload) throws Exception {
+    val tasks = new ArrayList<Callable<Void>>();
+    for (int thread = 0; thread < threads; thread++) {
+      val path = Paths.get("file-" + thread + ".log");
+      tasks.add(() -> {
+        for (int count = 0; count < recordsPerThread; count++) {
+          manager.append(path, Bytes.wrap(payload));
+        }
+        return null;
+      });
+    }
+
+    for (val future : executor.invokeAll(tasks)) {
+      future.get();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import lombok.val;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testing MPSC ring buffer")
+class MpscRingTests {
+
+  @Test
+  void boundedCapacity () {
+    val ring = new MpscRing<Integer>(3);
+    assertThat(ring.isEmpty()).isTrue();
+    assertThat(ring.poll()).isNull();
+
+    for (int index = 0; index < 3; index++) {
+      assertThat(ring.offer(index)).isTrue();
+    }
+    assertThat(ring.offer(3)).isFalse();
+    assertThat(ring.poll()).isEqualTo(0);
+    assertThat(ring.offer(3)).isTrue();
+
+    val drained = new ArrayList<Integer>();
+    assertThat(ring.drainTo(drained, 10)).isEqualTo(3);
+    assertThat(drained).containsExactly(1, 2, 3);
+    assertThat(ring.isEmpty()).isTrue();
+    assertThat(ring.take(MILLISECONDS.toNanos(1))).isNull();
+  }
+
+  @Test
+  void concurrentProducers () throws Exception {
+    val producers = 4;
+    val perProducer = 100_000;
+    val ring = new MpscRing<long[]>(64);
+
+    val threads = new ArrayList<Thread>();
+    for (int producer = 0; producer < producers; producer++) {
+      val id = producer;
+      val thread = new Thread(() -> {
+        for (int index = 0; index < perProducer; index++) {
+          ring.put(new long[] { id, index });
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    // every producer's elements are taken once and in its order
+    val next = new long[producers];
+    for (int count = 0; count < producers * perProducer; count++) {
+      long[] element;
+      do {
+        element = ring.take(MILLISECONDS.toNanos(10));
+      } while (element == null);
+
+      val producer = (int) element[0];
+      assertThat(element[1]).isEqualTo(next[producer]);
+      next[producer]++;
+    }
+    for (val thread : threads) {
+      thread.join();
+    }
+    assertThat(ring.isEmpty()).isTrue();
+  }
+}
@@ -18,10 +18,15 @@ package com.xxlabaza.utils.log.file;
 
 import static com.xxlabaza.utils.log.file.Record.Type.FULL;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.zip.CRC32;
 
+import com.xxlabaza.utils.log.file.exception.RecordCorruptedException;
+
 import io.appulse.utils.Bytes;
 import lombok.val;
 import org.junit.jupiter.api.DisplayName;
@@ -32,13 +37,13 @@ class RecordTests {
 
   @Test
   void write () {
-    val destination = Bytes.allocate(32);
+    val destination = ByteBuffer.allocate(32);
 
     val body = new byte[16];
     ThreadLocalRandom.current().nextBytes(body);
     val from = Bytes.wrap(body);
 
-    Record.write(destination, FULL, from);
+    val end = Record.write(destination, 0, FULL, from, body.length, ChecksumType.CRC32);
 
     val crc = new CRC32();
     crc.update(FULL.getCode());
@@ -46,42 +51,84 @@ class RecordTests {
     crc.update(body);
     val checksum = crc.getValue();
 
-    assertThat(destination.arrayCopy()).containsExactly(Bytes.resizableArray()
+    val written = new byte[end];
+    destination.position(0);
+    destination.get(written);
+    assertThat(written).containsExactly(Bytes.resizableArray()
         .write4B(checksum)
         .write1B(FULL.getCode())
         .write2B(body.length)
         .writeNB(body)
         .arrayCopy()
     );
+    assertThat(from.isReadable()).isFalse();
   }
 
   @Test
   void read () {
-    val blockBuffer = Bytes.allocate(32);
+    val block = ByteBuffer.allocate(32);
 
     val body = new byte[16];
     ThreadLocalRandom.current().nextBytes(body);
-    val from = Bytes.wrap(body);
 
-    Record.write(blockBuffer, FULL, from);
+    val end = Record.write(block, 0, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32);
+    assertThat(Record.check(block, 0, end, ChecksumType.CRC32)).isEqualTo(FULL);
+
+    val buffer = Bytes.resizableArray();
+    Record.copy(block, Record.Header.BYTES, Record.getLength(block, 0, end), buffer, null);
+
+    assertThat(buffer.arrayCopy()).containsExactly(body);
+  }
+
+  @Test
+  void readFromDirectBuffer () {
+    val block = ByteBuffer.allocateDirect(64);
+
+    val body = new byte[40];
+    ThreadLocalRandom.current().nextBytes(body);
+
+    val end = Record.write(block, 8, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32);
+    assertThat(Record.check(block, 8, end, ChecksumType.CRC32)).isEqualTo(FULL);
 
     val buffer = Bytes.resizableArray();
-    Record.read(buffer, blockBuffer);
+    Record.copy(block, 8 + Record.Header.BYTES, Record.getLength(block, 8, end), buffer, new byte[16]);
 
     assertThat(buffer.arrayCopy()).containsExactly(body);
   }
 
+  @Test
+  void writeAndReadWithCrc32c () {
+    assumeTrue(ChecksumType.CRC32C.isSupported());
+
+    val block = ByteBuffer.allocate(32);
+
+    val body = new byte[16];
+    ThreadLocalRandom.current().nextBytes(body);
+
+    val end = Record.write(block, 0, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32C);
+
+    val calculatedChecksum = ChecksumType.CRC32C.calculate(
+        block.array(),
+        Record.Header.TYPE_OFFSET,
+        end - Record.Header.TYPE_OFFSET
+    );
+    assertThat(Record.getChecksum(block, 0, end)).isEqualTo(calculatedChecksum);
+    assertThat(Record.check(block, 0, end, ChecksumType.CRC32C)).isEqualTo(FULL);
+
+    assertThatThrownBy(() -> Record.check(block, 0, end, ChecksumType.CRC32))
+        .isInstanceOf(RecordCorruptedException.class);
+  }
+
   @Test
   void getChecksum () {
-    val block = Bytes.allocate(32);
+    val block = ByteBuffer.allocate(32);
 
     val body = new byte[16];
     ThreadLocalRandom.current().nextBytes(body);
-    val buffer = Bytes.wrap(body);
 
-    Record.write(block, FULL, buffer);
+    val end = Record.write(block, 0, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32);
 
-    val recordChecksum = Record.getChecksum(block);
+    val recordChecksum = Record.getChecksum(block, 0, end);
 
     val crc = new CRC32();
     crc.update(FULL.getCode());
@@ -94,28 +141,26 @@ class RecordTests {
 
   @Test
   void getType () {
-    val block = Bytes.allocate(32);
+    val block = ByteBuffer.allocate(32);
 
     val body = new byte[16];
     ThreadLocalRandom.current().nextBytes(body);
-    val buffer = Bytes.wrap(body);
 
-    Record.write(block, FULL, buffer);
-    val type = Record.getType(block);
+    val end = Record.write(block, 0, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32);
+    val type = Record.getType(block, 0, end);
 
     assertThat(type).isEqualTo(FULL);
   }
 
   @Test
   void getLength () {
-    val block = Bytes.allocate(32);
+    val block = ByteBuffer.allocate(32);
 
     val body = new byte[16];
     ThreadLocalRandom.current().nextBytes(body);
-    val buffer = Bytes.wrap(body);
 
-    Record.write(block, FULL, buffer);
-    val length = Record.getLength(block);
+    val end = Record.write(block, 0, FULL, Bytes.wrap(body), body.length, ChecksumType.CRC32);
+    val length = Record.getLength(block, 0, end);
 
     assertThat(length).isEqualTo(body.length);
   }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.xxlabaza.utils.log.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import io.appulse.utils.Bytes;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Testing segmented log")
+class SegmentedLogFileTests {
+
+  Path directory;
+
+  SegmentedLogFile.Config config;
+
+  @BeforeEach
+  void beforeEach () throws Exception {
+    directory = Files.createTempDirectory("segments");
+    config = SegmentedLogFile.Config.builder()
+        .directory(directory)
+        .segment(LogFile.Config.builder()
+            .blockBufferSizeBytes(256)
+            .forceFlush(false)
+            .build())
+        .maxSegmentBytes(1024L)
+        .build();
+  }
+
+  @AfterEach
+  void afterEach () throws Exception {
+    try (val files = Files.walk(directory)) {
+      val paths = new ArrayList<Path>();
+      files.sorted(Comparator.reverseOrder()).forEach(paths::add);
+      for (val path : paths) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void rollsBySizeAndReadsAcrossSegments () {
+    val payloads = new ArrayList<Integer>();
+    try (val log = new SegmentedLogFile(config)) {
+      for (int index = 0; index < 100; index++) {
+        payloads.add(index);
+        log.append(record(index));
+      }
+      assertThat(log.segments().size()).isGreaterThan(1);
+      assertThat(load(log, Integer.MAX_VALUE)).isEqualTo(payloads);
+      assertThat(load(log, 10)).isEqualTo(payloads.subList(0, 10));
+    }
+
+    try (val log = new SegmentedLogFile(config)) {
+      for (int index = 100; index < 120; index++) {
+        payloads.add(index);
+        log.append(record(index));
+      }
+      assertThat(load(log, Integer.MAX_VALUE)).isEqualTo(payloads);
+    }
+  }
+
+  @Test
+  void retentionDeletesOldestSegments () {
+    try (val log = new SegmentedLogFile(config.withRetentionBytes(3000L))) {
+      for (int index = 0; index < 500; index++) {
+        log.append(record(index));
+      }
+      assertThat(log.size()).isLessThan(3000L + 1024L);
+
+      val records = load(log, Integer.MAX_VALUE);
+      assertThat(records.get(0)).isGreaterThan(0);
+      assertThat(records.get(records.size() - 1)).isEqualTo(499);
+      for (int index = 1; index < records.size(); index++) {
+        assertThat(records.get(index)).isEqualTo(records.get(index - 1) + 1);
+      }
+    }
+  }
+
+  @Test
+  void rollsByAge () throws Exception {
+    val ageConfig = config
+        .withMaxSegmentBytes(Long.MAX_VALUE)
+        .withMaxSegmentAge(Duration.ofMillis(50));
+
+    try (val log = new SegmentedLogFile(ageConfig)) {
+      log.append(record(0));
+      log.append(record(1));
+      assertThat(log.segments()).hasSize(1);
+
+      Thread.sleep(100);
+      log.append(record(2));
+      assertThat(log.segments()).hasSize(2);
+      assertThat(load(log, Integer.MAX_VALUE)).containsExactly(0, 1, 2);
+    }
+  }
+
+  @Test
+  void rollsByAgeAfterReopen () throws Exception {
+    val ageConfig = config
+        .withMaxSegmentBytes(Long.MAX_VALUE)
+        .withMaxSegmentAge(Duration.ofMillis(50));
+
+    try (val log = new SegmentedLogFile(ageConfig)) {
+      log.append(record(0));
+    }
+
+    Thread.sleep(100);
+    try (val log = new SegmentedLogFile(ageConfig)) {
+      log.append(record(1));
+      assertThat(log.segments()).hasSize(2);
+      assertThat(load(log, Integer.MAX_VALUE)).containsExactly(0, 1);
+    }
+  }
+
+  @Test
+  void deletedSegmentIsNotRecreatedByLoad () {
+    Path deleted;
+    try (val log = new SegmentedLogFile(config)) {
+      for (int index = 0; index < 100; index++) {
+        log.append(record(index));
+      }
+      val segments = log.segments();
+      assertThat(segments.size()).isGreaterThan(2);
+
+      deleted = segments.get(1);
+      val records = new ArrayList<Integer>();
+      log.load((record, position) -> {
+        if (records.isEmpty()) {
+          delete(deleted);
+        }
+        return records.add(record.readInt());
+      });
+
+      assertThat(Files.exists(deleted)).isFalse();
+      assertThat(records.get(records.size() - 1)).isEqualTo(99);
+    }
+
+    try (val log = new SegmentedLogFile(config)) {
+      assertThat(log.segments()).doesNotContain(deleted);
+    }
+  }
+
+  private static Bytes record (int value) {
+    val result = Bytes.allocate(40);
+    result.write4B(value);
+    result.writeNB(new byte[36]);
+    return result;
+  }
+
+  @SneakyThrows
+  private static void delete (Path path) {
+    Files.delete(path);
+  }
+
+  private static List<Integer> load (SegmentedLogFile log, int limit) {
+    val result = new ArrayList<Integer>();
+    log.load((record, position) -> {
+      result.add(record.readInt());
+      return result.size() < limit;
+    });
+    return result;
+  }
+}